@@ -0,0 +1,159 @@
+package com.ecspring.benchmarks;
+
+import com.ecspring.EcspringApplication;
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.OrderDto;
+import com.ecspring.dto.ShippingInfoDto;
+import com.ecspring.services.OrderService;
+import com.ecspring.services.RevenueRollupService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The order paths that scale with the size of the orders table, against the
+ * full application context on an in-memory H2 database seeded with the given
+ * number of orders. Every order has three line items and belongs to one of
+ * USERS customers, so getOrdersByUsername returns orders / USERS of them.
+ * createOrderFromRequest is also measured per number of distinct products in
+ * the checkout, see {@link Checkout}.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec [-Djmh.orders=1000] [-Djmh.benchmarks=regex]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// getAllOrders at a million orders materializes every order and line item
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class OrderServiceBenchmark {
+
+    private static final int USERS = 100;
+    private static final int PRODUCTS = 50;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final String CUSTOMER = "customer1";
+
+    @Param({"1000", "100000", "1000000"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // The security configuration needs the servlet stack, so the server starts on a random port
+        context = new SpringApplicationBuilder(EcspringApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:ecspring_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.root=WARN")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        seed(context.getBean(JdbcTemplate.class));
+        // Fixtures bypass the service, so seed the rollups the way a fresh deployment would
+        context.getBean(RevenueRollupService.class).rebuildRollups();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    // Kept out of the benchmark state, so only createOrderFromRequest runs once per item count
+    @State(Scope.Benchmark)
+    public static class Checkout {
+
+        @Param({"1", "10", "50"})
+        private int items;
+
+        private CheckoutRequestDto request;
+
+        @Setup(Level.Trial)
+        public void buildRequest(OrderServiceBenchmark benchmark) {
+            List<CheckoutOrderItemDto> orderItems = new ArrayList<>();
+            for (long productId = 1; productId <= items; productId++) {
+                orderItems.add(new CheckoutOrderItemDto(productId, 1 + (int) (productId % 3), null));
+            }
+            request = new CheckoutRequestDto();
+            request.setCustomerInfo(new ShippingInfoDto("Bench", "Customer", "555-0100", "1 Main St",
+                    "Springfield", "IL", "62701"));
+            request.setOrderItems(orderItems);
+            request.setPaymentMethod("CASH");
+            request.setTotalAmount(benchmark.orderService.quoteOrder(orderItems).getTotalAmount().doubleValue());
+            request.setDirectPurchase(true);
+        }
+    }
+
+    @Benchmark
+    public OrderDto createOrderFromRequest(Checkout checkout) {
+        return orderService.createOrderFromRequest(CUSTOMER, checkout.request);
+    }
+
+    @Benchmark
+    public List<OrderDto> getOrdersByUsername() {
+        return orderService.getOrdersByUsername(CUSTOMER);
+    }
+
+    @Benchmark
+    public List<OrderDto> getAllOrders() {
+        return orderService.getAllOrders();
+    }
+
+    @Benchmark
+    public Map<String, Object> getRevenueAnalytics() {
+        return orderService.getRevenueAnalytics();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getDailyRevenue() {
+        return orderService.getDailyRevenue(30);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getMonthlyRevenue() {
+        return orderService.getMonthlyRevenue(12);
+    }
+
+    @Benchmark
+    public Map<String, Object> getOrderStats() {
+        return orderService.getOrderStats();
+    }
+
+    // Set-based inserts, so even a million orders are seeded in seconds rather than through the service
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO users (id, name, username, email, password) " +
+                "SELECT n, 'Customer ' || n, 'customer' || n, 'customer' || n || '@bench.test', 'secret' " +
+                "FROM SYSTEM_RANGE(1, ?) AS r(n)", USERS);
+        // Plenty of stock, since createOrderFromRequest takes some on every invocation
+        jdbcTemplate.update("INSERT INTO products (id, name, price, quantity) " +
+                "SELECT n, 'Product ' || n, 1.5 + MOD(n, 10), 1000000000 FROM SYSTEM_RANGE(1, ?) AS r(n)", PRODUCTS);
+        // Spread over about two years at a million orders, so daily and monthly figures have data
+        jdbcTemplate.update("INSERT INTO orders (id, order_number, order_date, status, user_id, payment_method, total_amount) " +
+                "SELECT n, 'ORD-BENCH-' || n, DATEADD('MINUTE', -n, CURRENT_TIMESTAMP), " +
+                "CASE MOD(n, 5) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'PROCESSING' WHEN 2 THEN 'SHIPPED' " +
+                "WHEN 3 THEN 'DELIVERED' ELSE 'CANCELLED' END, 1 + MOD(n, ?), 'CASH', 0 " +
+                "FROM SYSTEM_RANGE(1, ?) AS r(n)", USERS, orders);
+        jdbcTemplate.update("INSERT INTO line_items (id, order_id, product_id, quantity, unit_price) " +
+                "SELECT n, 1 + (n - 1) / ?, 1 + MOD(n, ?), 1 + MOD(n, 3), 1.5 + MOD(1 + MOD(n, ?), 10) " +
+                "FROM SYSTEM_RANGE(1, ?) AS r(n)", ITEMS_PER_ORDER, PRODUCTS, PRODUCTS, (long) orders * ITEMS_PER_ORDER);
+        jdbcTemplate.update("UPDATE orders o SET total_amount = " +
+                "(SELECT SUM(li.quantity * li.unit_price) FROM line_items li WHERE li.order_id = o.id)");
+
+        // Explicit ids leave the identity columns behind
+        for (String table : List.of("users", "products", "orders", "line_items")) {
+            Long next = jdbcTemplate.queryForObject("SELECT MAX(id) + 1 FROM " + table, Long.class);
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecspring.cache;
+
+import com.ecspring.dto.OrderDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived copies of single orders keyed by order number, for customers
+ * polling their order page. Entries are dropped once a status change commits;
+ * the TTL bounds staleness from other backend instances and from writes that
+ * bypass the service.
+ */
+@Component
+public class OrderDtoCache {
+
+    @Value("${app.order-cache.ttl-ms:30000}")
+    private long ttlMs = 30000;
+
+    @Value("${app.order-cache.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a load that overlapped one may have read the old state and is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public OrderDto get(String orderNumber, Supplier<OrderDto> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(orderNumber);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.order();
+        }
+
+        long loadedAt = generation.get();
+        OrderDto order = loader.get();
+        if (generation.get() == loadedAt && (entries.size() < maxEntries || entries.containsKey(orderNumber))) {
+            entries.put(orderNumber, new Entry(order, now + ttlMs));
+        }
+        return order;
+    }
+
+    public void invalidate(String orderNumber) {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            entries.remove(orderNumber);
+        });
+    }
+
+    public void invalidateAll(Collection<String> orderNumbers) {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            entries.keySet().removeAll(orderNumbers);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.order-cache.ttl-ms:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+    }
+
+    private record Entry(OrderDto order, long expiresAt) {
+    }
+}
@@ -0,0 +1,242 @@
+package com.ecspring.cache;
+
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * The whole product catalog in memory for the storefront listings, as immutable
+ * snapshots keyed by id with precomputed in-stock and by-price views. Readers
+ * never lock; every change builds a new catalog and swaps it in, which is cheap
+ * for a catalog of a few hundred products. Product writes and stock changes are
+ * applied once their transaction commits; a periodic reload bounds any drift
+ * from writes that bypass the application.
+ */
+@Slf4j
+@Component
+public class ProductCatalogCache {
+
+    private static final String CACHE_NAME = "productCatalog";
+
+    private final ProductRepository productRepository;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    // Null until first use and after an invalidation
+    private volatile Catalog catalog;
+
+    // Bumped on every change; a load that overlapped one may have read the old state and is not installed
+    private long generation;
+
+    // Writes from the start of their commit until they are applied; a load that ended meanwhile may have
+    // read the committed rows and would then get the change a second time, so it is not installed either
+    private int pendingWrites;
+
+    @Autowired
+    public ProductCatalogCache(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .description("Catalog reads served from memory").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+                .description("Catalog reads that had to load the products").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME)
+                .description("Products dropped from the catalog").register(meterRegistry);
+        Gauge.builder("cache.size", this, cache -> {
+                    Catalog current = cache.catalog;
+                    return current == null ? 0 : current.all().size();
+                })
+                .tag("cache", CACHE_NAME).register(meterRegistry);
+    }
+
+    public List<ProductSnapshot> findAll() {
+        return catalog().all();
+    }
+
+    public Optional<ProductSnapshot> findById(Long id) {
+        return Optional.ofNullable(catalog().byId().get(id));
+    }
+
+    public List<ProductSnapshot> findInStock() {
+        return catalog().inStock();
+    }
+
+    public List<ProductSnapshot> findByPriceBetween(double minPrice, double maxPrice) {
+        List<ProductSnapshot> byPrice = catalog().byPrice();
+        List<ProductSnapshot> matches = new ArrayList<>();
+        for (int i = firstAtLeast(byPrice, minPrice); i < byPrice.size() && byPrice.get(i).price() <= maxPrice; i++) {
+            matches.add(byPrice.get(i));
+        }
+        return matches;
+    }
+
+    // Created or updated product, including a new image
+    public void put(ProductEntity product) {
+        ProductSnapshot snapshot = ProductSnapshot.of(product);
+        afterCommit(products -> {
+            products.put(snapshot.id(), snapshot);
+            return products;
+        });
+    }
+
+    public void remove(Long productId) {
+        afterCommit(products -> {
+            if (products.remove(productId) != null) {
+                evictions.increment();
+            }
+            return products;
+        });
+    }
+
+    // Signed quantity changes per product from checkouts, holds and cancellations
+    public void applyStockDeltas(Map<Long, Integer> deltas) {
+        Map<Long, Integer> committed = Map.copyOf(deltas);
+        afterCommit(products -> {
+            committed.forEach((productId, delta) -> products.computeIfPresent(productId,
+                    (id, product) -> product.withQuantity(product.quantity() + delta)));
+            return products;
+        });
+    }
+
+    // Feedback added or removed
+    public void applyRating(Long productId, int countDelta, long sumDelta) {
+        afterCommit(products -> {
+            products.computeIfPresent(productId, (id, product) -> product.withRating(countDelta, sumDelta));
+            return products;
+        });
+    }
+
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                generation++;
+                if (catalog != null) {
+                    evictions.increment(catalog.all().size());
+                    catalog = null;
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.product-catalog.refresh-ms:300000}",
+            initialDelayString = "${app.product-catalog.refresh-ms:300000}")
+    public void reload() {
+        if (catalog != null) {
+            load();
+            log.debug("Reloaded the product catalog");
+        }
+    }
+
+    private Catalog catalog() {
+        Catalog current = catalog;
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return load();
+    }
+
+    private Catalog load() {
+        long loadedAt;
+        synchronized (this) {
+            loadedAt = generation;
+        }
+        Catalog loaded = Catalog.of(productRepository.findCatalogEntries().stream().map(ProductSnapshot::of).toList());
+        synchronized (this) {
+            if (generation == loadedAt && pendingWrites == 0) {
+                catalog = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    // Like AfterCommit.run, but counted in pendingWrites while the transaction commits
+    private void afterCommit(UnaryOperator<Map<Long, ProductSnapshot>> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                synchronized (ProductCatalogCache.this) {
+                    pendingWrites++;
+                }
+                committing = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                update(change);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (committing) {
+                    synchronized (ProductCatalogCache.this) {
+                        pendingWrites--;
+                    }
+                }
+            }
+        });
+    }
+
+    private synchronized void update(UnaryOperator<Map<Long, ProductSnapshot>> change) {
+        generation++;
+        if (catalog != null) {
+            catalog = Catalog.of(change.apply(new LinkedHashMap<>(catalog.byId())).values());
+        }
+    }
+
+    private static int firstAtLeast(List<ProductSnapshot> byPrice, double price) {
+        int low = 0;
+        int high = byPrice.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (byPrice.get(mid).price() < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private record Catalog(Map<Long, ProductSnapshot> byId, List<ProductSnapshot> all,
+                           List<ProductSnapshot> inStock, List<ProductSnapshot> byPrice) {
+
+        static Catalog of(Collection<ProductSnapshot> products) {
+            List<ProductSnapshot> all = products.stream()
+                    .sorted(Comparator.comparing(ProductSnapshot::id))
+                    .toList();
+            Map<Long, ProductSnapshot> byId = new LinkedHashMap<>();
+            all.forEach(product -> byId.put(product.id(), product));
+            return new Catalog(
+                    Collections.unmodifiableMap(byId),
+                    all,
+                    all.stream().filter(ProductSnapshot::inStock).toList(),
+                    all.stream().sorted(Comparator.comparing(ProductSnapshot::price)).toList());
+        }
+    }
+}
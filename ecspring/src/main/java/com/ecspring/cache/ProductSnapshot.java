@@ -0,0 +1,40 @@
+package com.ecspring.cache;
+
+import com.ecspring.dto.ProductDto;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.ProductRepository;
+
+// Immutable copy of the catalog fields of a product, safe to share between requests
+public record ProductSnapshot(Long id, String name, String description, Double price, Integer quantity,
+                              String imageUrl, String imageName, Integer ratingCount, Long ratingSum) {
+
+    public static ProductSnapshot of(ProductEntity product) {
+        return new ProductSnapshot(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getQuantity(), product.getImageUrl(), product.getImageName(), product.getRatingCount(),
+                product.getRatingSum());
+    }
+
+    public static ProductSnapshot of(ProductRepository.CatalogEntry entry) {
+        return new ProductSnapshot(entry.getId(), entry.getName(), entry.getDescription(), entry.getPrice(),
+                entry.getQuantity(), entry.getImageUrl(), entry.getImageName(), entry.getRatingCount(),
+                entry.getRatingSum());
+    }
+
+    public ProductSnapshot withQuantity(int quantity) {
+        return new ProductSnapshot(id, name, description, price, quantity, imageUrl, imageName, ratingCount, ratingSum);
+    }
+
+    public ProductSnapshot withRating(int countDelta, long sumDelta) {
+        return new ProductSnapshot(id, name, description, price, quantity, imageUrl, imageName,
+                ratingCount + countDelta, ratingSum + sumDelta);
+    }
+
+    public boolean inStock() {
+        return quantity > 0;
+    }
+
+    // A fresh DTO per caller, so nobody can change the cached copy
+    public ProductDto toDto() {
+        return new ProductDto(id, name, description, price, quantity, imageUrl, ratingCount, ratingSum);
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecspring.config;
+
+import com.ecspring.services.StorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+
+// Kept out of the application class, so test slices that do not scan configuration classes skip it
+@Configuration
+public class StorageConfig {
+
+    @Value("${storage.location:src/main/resources/static/uploads/products}")
+    private String storageLocation;
+
+    @Bean
+    CommandLineRunner init(StorageService storageService) {
+        return (args) -> {
+            // Create the directory for storing uploads based on environment variable
+            File uploadDir = new File(storageLocation);
+            if (!uploadDir.exists()) {
+                uploadDir.mkdirs();
+            }
+
+            // Initialize the storage service
+            storageService.init();
+        };
+    }
+}
@@ -1,20 +1,37 @@
 package com.ecspring.controllers;
 
+import com.ecspring.dto.BulkStatusUpdateRequestDto;
 import com.ecspring.dto.OrderDto;
+import com.ecspring.dto.OrderStatusDto;
 import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.PriceQuoteRequestDto;
+import com.ecspring.dto.StockHoldDto;
+import com.ecspring.dto.StockHoldRequestDto;
+import com.ecspring.entity.OrderStatus;
+import com.ecspring.exception.IdempotencyKeyConflictException;
+import com.ecspring.exception.OrderStatusConflictException;
+import com.ecspring.exception.PriceMismatchException;
 import com.ecspring.exception.ResourceNotFoundException;
 import com.ecspring.security.services.UserDetailsImpl;
+import com.ecspring.services.IdempotencyService;
+import com.ecspring.services.OrderExportService;
 import com.ecspring.services.OrderService;
+import com.ecspring.services.RevenueRollupService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -27,20 +44,71 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
+    private final RevenueRollupService revenueRollupService;
+    private final IdempotencyService idempotencyService;
+    private final OrderExportService orderExportService;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, RevenueRollupService revenueRollupService,
+                           IdempotencyService idempotencyService, OrderExportService orderExportService) {
         this.orderService = orderService;
+        this.revenueRollupService = revenueRollupService;
+        this.idempotencyService = idempotencyService;
+        this.orderExportService = orderExportService;
     }
 
-    // Create order from checkout request
+    // Create order from checkout request. With an Idempotency-Key header, retries of the same
+    // request get the original order back instead of placing a second one.
     @PostMapping("/checkout")  // Keep this as "/checkout"
     public ResponseEntity<?> createOrderFromRequest(
             @RequestBody @Valid CheckoutRequestDto checkoutRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
         try {
-            OrderDto newOrder = orderService.createOrderFromRequest(userDetails.getUsername(), checkoutRequest);
+            OrderDto newOrder = idempotencyKey == null
+                    ? orderService.createOrderFromRequest(userDetails.getUsername(), checkoutRequest)
+                    : idempotencyService.checkoutOnce(userDetails.getId(), idempotencyKey, checkoutRequest,
+                            () -> orderService.createOrderFromRequest(userDetails.getUsername(), checkoutRequest));
             return new ResponseEntity<>(newOrder, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (PriceMismatchException e) {
+            // The client shows the returned quote and asks the customer to confirm again
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "quote", e.getQuote()));
+        } catch (IdempotencyKeyConflictException e) {
+            return ResponseEntity.unprocessableEntity().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Price a cart or direct purchase at the current product prices; places and reserves nothing
+    @PostMapping("/quote")
+    public ResponseEntity<?> quoteOrder(@RequestBody @Valid PriceQuoteRequestDto quoteRequest) {
+        try {
+            return ResponseEntity.ok(orderService.quoteOrder(quoteRequest.getOrderItems()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Set stock aside while the customer completes checkout; pass the returned holdId with the order
+    @PostMapping("/checkout/hold")
+    public ResponseEntity<?> holdStock(
+            @RequestBody @Valid StockHoldRequestDto holdRequest,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        try {
+            StockHoldDto hold = orderService.holdStock(userDetails.getUsername(), holdRequest.getOrderItems());
+            return new ResponseEntity<>(hold, HttpStatus.CREATED);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", e.getMessage()));
@@ -112,14 +180,10 @@ public class OrderController {
                         .body(Map.of("error", "You must be logged in to update an order"));
             }
             
-            String newStatus = statusUpdate.get("status");
-            if (newStatus == null || newStatus.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Status cannot be empty"));
-            }
+            OrderStatus newStatus = OrderStatus.parse(statusUpdate.get("status"));
             
-            // Get the order to check ownership
-            OrderDto order = orderService.getOrderById(id);
-            String orderUsername = order.getUserName(); // Get the order owner's username
+            // Ownership and current status come from a narrow projection, not the full order with its items
+            OrderStatusDto order = orderService.getOrderStatus(id);
                     
             // Check if user is admin or order owner
             boolean isAdmin = userDetails.getAuthorities().stream()
@@ -127,18 +191,24 @@ public class OrderController {
                                   a.getAuthority().equals("ROLE_STAFF") ||
                                   a.getAuthority().equals("ROLE_OWNER"));
             
-            boolean isOrderOwner = userDetails.getUsername().equals(orderUsername);
+            boolean isOrderOwner = userDetails.getUsername().equals(order.getUsername());
             
             // Regular users can only change to CANCELLED and only their own PENDING orders
             if (!isAdmin && (!isOrderOwner || 
-                             !order.getStatus().equals("PENDING") ||
-                             !newStatus.equals("CANCELLED"))) {
+                             !OrderStatus.PENDING.name().equals(order.getStatus()) ||
+                             newStatus != OrderStatus.CANCELLED)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("error", "You can only cancel your own pending orders"));
             }
             
-            OrderDto updatedOrder = orderService.updateOrderStatus(id, newStatus.toUpperCase());
+            // Applied only if the order is still in the status the permission check saw
+            OrderStatusDto updatedOrder = orderService.transitionOrderStatus(id, order.getStatus(), newStatus.name());
             return ResponseEntity.ok(updatedOrder);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (OrderStatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
@@ -149,6 +219,26 @@ public class OrderController {
         }
     }
 
+    // Move many orders to one status at once, e.g. a whole tray from PROCESSING to SHIPPED.
+    // Orders that cannot make the transition are reported in the results rather than failing the call.
+    @PutMapping("/status")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_STAFF','ROLE_OWNER')")
+    public ResponseEntity<?> bulkUpdateOrderStatus(@RequestBody @Valid BulkStatusUpdateRequestDto bulkUpdate) {
+        try {
+            return ResponseEntity.ok(orderService.bulkUpdateOrderStatus(
+                    bulkUpdate.getOrderIds(), bulkUpdate.getExpectedStatus(), bulkUpdate.getStatus()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (OrderStatusConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error updating order statuses: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // Get user's orders with filtering options
     @GetMapping("/my-orders")
     public ResponseEntity<?> getUserOrders(
@@ -177,6 +267,32 @@ public class OrderController {
         }
     }
 
+    // Get user's orders one keyset page at a time
+    @GetMapping("/my-orders/page")
+    public ResponseEntity<?> getUserOrdersPage(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("error", "You must be logged in to view your orders"));
+            }
+
+            return ResponseEntity.ok(orderService.getOrdersPageByUsername(
+                    userDetails.getUsername(), normalizeStatus(status), startDate, endDate, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching user orders page: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_STAFF','ROLE_OWNER')")
     public ResponseEntity<?> getAllOrders() {
@@ -189,6 +305,54 @@ public class OrderController {
         }
     }
 
+    // Stream orders and their line items in a date range as CSV or NDJSON, e.g. for accounting (admin only).
+    // Rows go straight to the response while they are read, so any range can be exported in constant memory.
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_STAFF','ROLE_OWNER')")
+    public void exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "endDate must not be before startDate");
+        }
+
+        String extension = exportFormat == OrderExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(exportFormat == OrderExportService.Format.CSV
+                ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("orders-" + startDate.toLocalDate() + "-" + endDate.toLocalDate() + "." + extension)
+                .build().toString());
+        orderExportService.exportOrders(startDate, endDate, exportFormat, response.getOutputStream());
+    }
+
+    // Get all orders one keyset page at a time, optionally filtered by status and date range (admin only)
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_STAFF','ROLE_OWNER')")
+    public ResponseEntity<?> getOrdersPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(orderService.getOrdersPage(normalizeStatus(status), startDate, endDate, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error fetching orders page: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // Get orders by status (admin only)
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_STAFF','ROLE_OWNER')")
@@ -288,4 +452,22 @@ public class OrderController {
                     .body(Map.of("error", e.getMessage()));
         }
     }
+
+    // Recompute the revenue rollups from the raw orders (admin only)
+    @PostMapping("/analytics/rollups/rebuild")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_OWNER')")
+    public ResponseEntity<?> rebuildRevenueRollups() {
+        try {
+            int corrected = revenueRollupService.rebuildRollups();
+            return ResponseEntity.ok(Map.of("correctedCells", corrected));
+        } catch (Exception e) {
+            log.error("Error rebuilding revenue rollups: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private String normalizeStatus(String status) {
+        return status == null || status.trim().isEmpty() ? null : status.trim().toUpperCase();
+    }
 }
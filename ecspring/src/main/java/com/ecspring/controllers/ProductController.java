@@ -3,10 +3,17 @@ package com.ecspring.controllers;
 import com.ecspring.entity.ProductEntity;
 import com.ecspring.exception.ResourceNotFoundException;
 import com.ecspring.exception.StorageFileNotFoundException;
+import com.ecspring.security.services.UserDetailsImpl;
+import com.ecspring.services.FeedbackService;
 import com.ecspring.services.ProductService;
 import com.ecspring.services.StorageService;
+import com.ecspring.dto.FeedbackDto;
+import com.ecspring.dto.FeedbackRequestDto;
 import com.ecspring.dto.ProductDto;
 import com.ecspring.dto.ProductFilterDto;
+import com.ecspring.dto.ProductSuggestionDto;
+
+import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
@@ -18,6 +25,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -32,34 +40,45 @@ public class ProductController {
 
     private final ProductService productService;
     private final StorageService storageService;
+    private final FeedbackService feedbackService;
 
     @Autowired
-    public ProductController(ProductService productService, StorageService storageService) {
+    public ProductController(ProductService productService, StorageService storageService,
+                             FeedbackService feedbackService) {
         this.productService = productService;
         this.storageService = storageService;
+        this.feedbackService = feedbackService;
     }
 
     // Get all products
     @GetMapping
-    public ResponseEntity<List<ProductEntity>> getAllProducts() {
+    public ResponseEntity<List<ProductDto>> getAllProducts() {
         return ResponseEntity.ok(productService.getAllProducts());
     }
 
     // Get products in stock
     @GetMapping("/in-stock")
-    public ResponseEntity<List<ProductEntity>> getProductsInStock() {
+    public ResponseEntity<List<ProductDto>> getProductsInStock() {
         return ResponseEntity.ok(productService.getProductsInStock());
     }
 
     // Search products by name
     @GetMapping("/search")
-    public ResponseEntity<List<ProductEntity>> searchProducts(@RequestParam String name) {
+    public ResponseEntity<List<ProductDto>> searchProducts(@RequestParam String name) {
         return ResponseEntity.ok(productService.searchProductsByName(name));
     }
 
+    // Typeahead for the search box: ids and names only, answered from memory
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDto>> suggestProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productService.suggestProducts(q, limit));
+    }
+
     // Get products by price range
     @GetMapping("/price-range")
-    public ResponseEntity<List<ProductEntity>> getProductsByPriceRange(
+    public ResponseEntity<List<ProductDto>> getProductsByPriceRange(
             @RequestParam Double minPrice,
             @RequestParam Double maxPrice) {
         return ResponseEntity.ok(productService.getProductsByPriceRange(minPrice, maxPrice));
@@ -67,7 +86,7 @@ public class ProductController {
 
     // Get product by id
     @GetMapping("/{id}")
-    public ResponseEntity<ProductEntity> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductDto> getProductById(@PathVariable Long id) {
         return productService.getProductById(id)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
@@ -125,6 +144,21 @@ public class ProductController {
         }
     }
 
+    // Review a product; the product's rating totals are updated in the same transaction
+    @PostMapping("/{id}/feedback")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> addFeedback(
+            @PathVariable Long id,
+            @RequestBody @Valid FeedbackRequestDto feedbackRequest,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        try {
+            FeedbackDto feedback = feedbackService.addFeedback(userDetails.getUsername(), id, feedbackRequest);
+            return new ResponseEntity<>(feedback, HttpStatus.CREATED);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // Serve product image
     @GetMapping("/images/{filename:.+}")
     @ResponseBody
@@ -152,40 +186,8 @@ public class ProductController {
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
 
-        // Get filtered products
-        Page<ProductEntity> productPage = productService.filterProducts(filterDto, pageable);
-
-        // Convert to DTOs
-        Page<ProductDto> productDtoPage = productPage.map(this::convertToDto);
-
-        return ResponseEntity.ok(productDtoPage);
-    }
-
-    // Helper method to convert entity to DTO
-    private ProductDto convertToDto(ProductEntity product) {
-        ProductDto dto = new ProductDto();
-        dto.setId(product.getId());
-        dto.setName(product.getName());
-        dto.setDescription(product.getDescription());
-        dto.setPrice(product.getPrice());
-        dto.setQuantity(product.getQuantity());
-        dto.setImageUrl(product.getImageUrl());
-
-        // Change this line to use stock instead of quantity if needed
-        dto.setInStock(product.getQuantity() > 0);
-
-        // Calculate average rating if feedbacks exist
-        if (product.getFeedbacks() != null && !product.getFeedbacks().isEmpty()) {
-            double avgRating = product.getFeedbacks().stream()
-                    .mapToInt(feedback -> feedback.getStar())
-                    .average()
-                    .orElse(0.0);
-            dto.setAvgRating(avgRating);
-        } else {
-            dto.setAvgRating(0.0);
-        }
-
-        return dto;
+        // Get filtered products, with ratings from the stored totals
+        return ResponseEntity.ok(productService.filterProducts(filterDto, pageable));
     }
 
     @ExceptionHandler(StorageFileNotFoundException.class)
@@ -0,0 +1,24 @@
+package com.ecspring.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateRequestDto {
+    @NotEmpty(message = "Order ids cannot be empty")
+    @Size(max = 500, message = "At most 500 orders can be updated at once")
+    private List<Long> orderIds;
+
+    @NotBlank(message = "Status is required")
+    private String status;
+
+    private String expectedStatus; // Optional, orders found in any other status are skipped
+}
@@ -0,0 +1,18 @@
+package com.ecspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResultDto {
+    private String status;
+    private int updated;
+    private int failed;
+    private List<OrderStatusResultDto> results = new ArrayList<>(); // In request order
+}
@@ -26,4 +26,6 @@ public class CheckoutRequestDto {
     private Double totalAmount;
     
     private Boolean directPurchase = false;
+
+    private String holdId; // Optional, from POST /api/orders/checkout/hold
 }
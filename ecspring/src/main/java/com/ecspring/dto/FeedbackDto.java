@@ -0,0 +1,16 @@
+package com.ecspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedbackDto {
+    private Long id;
+    private Long productId;
+    private String username;
+    private Integer star;
+    private String content;
+}
@@ -0,0 +1,24 @@
+package com.ecspring.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedbackRequestDto {
+    @NotNull
+    @Min(1)
+    @Max(5)
+    private Integer star;
+
+    @NotBlank
+    @Size(max = 1000)
+    private String content;
+}
@@ -0,0 +1,18 @@
+package com.ecspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDto {
+    private List<OrderDto> items = new ArrayList<>();
+    private Integer size;
+    private Boolean hasMore;
+    private String nextCursor; // Opaque keyset cursor, pass back to fetch the next page
+}
@@ -0,0 +1,18 @@
+package com.ecspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Just enough of an order to authorize and report a status change, without loading its line items
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusDto {
+    private Long id;
+    private String orderNumber;
+    private String status;
+    private Long userId;
+    // The login name, unlike OrderDto.userName which is the display name
+    private String username;
+}
@@ -0,0 +1,17 @@
+package com.ecspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome for one order of a bulk status update
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusResultDto {
+    private Long orderId;
+    private String orderNumber;
+    private String previousStatus;
+    private boolean success;
+    private String error;
+}
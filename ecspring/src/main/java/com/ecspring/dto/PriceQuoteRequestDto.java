@@ -0,0 +1,16 @@
+package com.ecspring.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuoteRequestDto {
+    @NotEmpty(message = "Order items cannot be empty")
+    private List<CheckoutOrderItemDto> orderItems;
+}
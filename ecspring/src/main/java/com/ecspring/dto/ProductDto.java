@@ -16,4 +16,12 @@ public class ProductDto {
     private String imageUrl;
     private Boolean inStock;
     private Double avgRating;
-}
\ No newline at end of file
+    private Integer ratingCount;
+
+    // From the stored product columns, as read by the repository projections
+    public ProductDto(Long id, String name, String description, Double price, Integer quantity, String imageUrl,
+                      Integer ratingCount, Long ratingSum) {
+        this(id, name, description, price, quantity, imageUrl, quantity > 0,
+                ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0, ratingCount);
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldDto {
+    private String holdId; // Pass back as CheckoutRequestDto.holdId to check out against the held stock
+    private LocalDateTime expiresAt;
+}
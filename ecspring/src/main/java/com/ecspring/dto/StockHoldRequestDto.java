@@ -0,0 +1,15 @@
+package com.ecspring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldRequestDto {
+    @NotEmpty(message = "Order items cannot be empty")
+    private List<CheckoutOrderItemDto> orderItems;
+}
@@ -0,0 +1,28 @@
+package com.ecspring.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@Entity
+@Table(name="invoices_archive")
+@NoArgsConstructor
+public class ArchivedInvoiceEntity {
+
+    @Id
+    private Long id;
+
+    @Column(name="invoice_number", nullable=false, unique=true)
+    private String invoiceNumber;
+
+    @Column(name="date_created", nullable=false)
+    private LocalDateTime dateCreated;
+
+    @Column(name="order_id", nullable=false, unique=true)
+    private Long orderId;
+}
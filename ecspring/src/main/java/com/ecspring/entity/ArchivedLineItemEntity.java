@@ -0,0 +1,38 @@
+package com.ecspring.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Line item of an archived order; the product is copied by value so products stay deletable
+@Setter
+@Getter
+@Entity
+@Table(name="line_items_archive", indexes = {
+    @Index(name="idx_line_items_archive_order", columnList="order_id")
+})
+@NoArgsConstructor
+public class ArchivedLineItemEntity {
+
+    @Id
+    private Long id;
+
+    @Column(name="order_id", nullable=false)
+    private Long orderId;
+
+    @Column(name="product_id", nullable=false)
+    private Long productId;
+
+    @Column(name="product_name")
+    private String productName;
+
+    @Column(name="product_image_url")
+    private String productImageUrl;
+
+    @Column(nullable=false)
+    private Integer quantity;
+
+    @Column(name="unit_price")
+    private Double unitPrice;
+}
@@ -0,0 +1,66 @@
+package com.ecspring.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Delivered order moved out of the hot orders table; keeps the original id
+@Setter
+@Getter
+@Entity
+@Table(name="orders_archive", indexes = {
+    @Index(name="idx_orders_archive_user_date", columnList="user_id, order_date"),
+    @Index(name="idx_orders_archive_date_id", columnList="order_date, id")
+})
+@NoArgsConstructor
+public class ArchivedOrderEntity {
+
+    @Id
+    private Long id;
+
+    @Column(name="order_number", nullable=false, unique=true)
+    private String orderNumber;
+
+    @Column(name="order_date", nullable=false)
+    private LocalDateTime orderDate;
+
+    @Column(nullable=false)
+    private String status;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name="user_id", nullable=false)
+    private UserEntity user;
+
+    @Column(name="payment_method", nullable=false)
+    private String paymentMethod;
+
+    @Column(name="total_amount")
+    private Double totalAmount;
+
+    @Column(name="shipping_first_name")
+    private String shippingFirstName;
+
+    @Column(name="shipping_last_name")
+    private String shippingLastName;
+
+    @Column(name="shipping_phone")
+    private String shippingPhone;
+
+    @Column(name="shipping_address")
+    private String shippingAddress;
+
+    @Column(name="shipping_city")
+    private String shippingCity;
+
+    @Column(name="shipping_state")
+    private String shippingState;
+
+    @Column(name="shipping_zip_code")
+    private String shippingZipCode;
+
+    @Column(name="archived_at", nullable=false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,45 @@
+package com.ecspring.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Checkout already performed under a client supplied Idempotency-Key, with the response to replay
+@Setter
+@Getter
+@Entity
+@Table(name="idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name="uk_idempotency_keys_user_key", columnNames={"user_id", "idempotency_key"})
+}, indexes = {
+    @Index(name="idx_idempotency_keys_expires_at", columnList="expires_at")
+})
+@NoArgsConstructor
+public class IdempotencyKeyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name="user_id", nullable=false)
+    private Long userId;
+
+    @Column(name="idempotency_key", nullable=false, length=100)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, so a reused key with a different payload is rejected instead of replayed
+    @Column(name="request_hash", nullable=false, length=64)
+    private String requestHash;
+
+    // OrderDto as JSON; written in the same transaction as the order, so a visible row is always complete
+    @Column(name="response_body", columnDefinition="TEXT")
+    private String responseBody;
+
+    @Column(name="created_at", nullable=false)
+    private LocalDateTime createdAt;
+
+    @Column(name="expires_at", nullable=false)
+    private LocalDateTime expiresAt;
+}
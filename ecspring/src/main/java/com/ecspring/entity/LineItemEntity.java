@@ -23,6 +23,10 @@ public class LineItemEntity {
     @Column(nullable=false)
     private Integer quantity;
     
+    // Price per unit at the time of purchase; null while the item sits in a cart
+    @Column(name="unit_price")
+    private Double unitPrice;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="product_id", nullable=false)
     private ProductEntity product;
@@ -14,7 +14,12 @@ import java.util.List;
 @Setter
 @Getter
 @Entity
-@Table(name="orders")
+@Table(name="orders", indexes = {
+    // Keyset pagination walks (order_date, id) backwards, optionally narrowed by user or status
+    @Index(name="idx_orders_date_id", columnList="order_date, id"),
+    @Index(name="idx_orders_user_date_id", columnList="user_id, order_date, id"),
+    @Index(name="idx_orders_status_date_id", columnList="status, order_date, id")
+})
 @DynamicInsert
 @DynamicUpdate
 @NoArgsConstructor
@@ -40,12 +45,10 @@ public class OrderEntity {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<LineItemEntity> items = new ArrayList<>();
     
-    @OneToOne(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
-    private InvoiceEntity invoice;
-    
     @Column(name="payment_method", nullable=false)
     private String paymentMethod;
     
+    // Server-computed sum of the line items' unit price times quantity
     @Column(name="total_amount")
     private Double totalAmount;
     
@@ -0,0 +1,48 @@
+package com.ecspring.entity;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Lifecycle of an order. Stored by name in orders.status; every change must be an allowed transition.
+public enum OrderStatus {
+    PENDING,
+    PROCESSING,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED;
+
+    // Fulfilment only moves forward (steps may be skipped), orders can be cancelled until they ship,
+    // and a cancelled order can be reinstated, which takes its stock again
+    private static final Set<OrderStatus> FROM_PENDING = EnumSet.of(PROCESSING, SHIPPED, DELIVERED, CANCELLED);
+    private static final Set<OrderStatus> FROM_PROCESSING = EnumSet.of(SHIPPED, DELIVERED, CANCELLED);
+    private static final Set<OrderStatus> FROM_SHIPPED = EnumSet.of(DELIVERED);
+    private static final Set<OrderStatus> FROM_DELIVERED = EnumSet.noneOf(OrderStatus.class);
+    private static final Set<OrderStatus> FROM_CANCELLED = EnumSet.of(PENDING);
+
+    public Set<OrderStatus> nextStatuses() {
+        return switch (this) {
+            case PENDING -> FROM_PENDING;
+            case PROCESSING -> FROM_PROCESSING;
+            case SHIPPED -> FROM_SHIPPED;
+            case DELIVERED -> FROM_DELIVERED;
+            case CANCELLED -> FROM_CANCELLED;
+        };
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return nextStatuses().contains(next);
+    }
+
+    // Case-insensitive; throws IllegalArgumentException for anything that is not a known status
+    public static OrderStatus parse(String status) {
+        if (status == null || status.isBlank()) {
+            throw new IllegalArgumentException("Status cannot be empty");
+        }
+        try {
+            return valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown order status: " + status);
+        }
+    }
+}
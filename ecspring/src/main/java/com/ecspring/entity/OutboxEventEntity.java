@@ -0,0 +1,56 @@
+package com.ecspring.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Order event recorded in the same transaction as the order change and removed once the relay delivered it
+@Setter
+@Getter
+@Entity
+@Table(name="outbox_events", indexes = {
+    @Index(name="idx_outbox_events_available_at", columnList="available_at")
+})
+@NoArgsConstructor
+public class OutboxEventEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Becomes the notification id, which is what makes redelivery idempotent
+    @Column(name="event_id", nullable=false, unique=true, length=36)
+    private String eventId;
+
+    @Column(name="event_type", nullable=false)
+    private String eventType; // ORDER_CREATED, ORDER_UPDATE, ORDERS_UPDATE
+
+    @Column(name="order_number", nullable=false)
+    private String orderNumber;
+
+    // Every order of a coalesced ORDERS_UPDATE event, comma separated; order_number holds the first
+    @Column(name="order_numbers", columnDefinition="TEXT")
+    private String orderNumbers;
+
+    @Column(name="order_status")
+    private String orderStatus;
+
+    @Column(name="user_id", nullable=false)
+    private Long userId;
+
+    @Column(nullable=false)
+    private String username;
+
+    @Column(name="created_at", nullable=false)
+    private LocalDateTime createdAt;
+
+    // Not picked up before this time; pushed forward while a relay holds the event and after failures
+    @Column(name="available_at", nullable=false)
+    private LocalDateTime availableAt;
+
+    @Column(nullable=false)
+    private Integer attempts = 0;
+}
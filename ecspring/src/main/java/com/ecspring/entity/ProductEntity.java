@@ -1,9 +1,11 @@
 package com.ecspring.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.DynamicInsert;
 import org.hibernate.annotations.DynamicUpdate;
 
@@ -40,6 +42,17 @@ public class ProductEntity {
     
     @Column(name="image_name", nullable=true)
     private String imageName;
+
+    // Running totals of the feedback stars, maintained by ProductRatingService
+    @Column(name="rating_count", nullable=false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer ratingCount = 0;
+
+    @Column(name="rating_sum", nullable=false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long ratingSum = 0L;
     
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<FeedbackEntity> feedbacks = new ArrayList<>();
@@ -0,0 +1,39 @@
+package com.ecspring.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.DynamicInsert;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDate;
+
+// Running order count and revenue per order day and current status, maintained as orders change status
+@Setter
+@Getter
+@Entity
+@Table(name="revenue_rollups", uniqueConstraints = {
+    @UniqueConstraint(name="uk_revenue_rollups_date_status", columnNames={"rollup_date", "status"})
+})
+@DynamicInsert
+@DynamicUpdate
+@NoArgsConstructor
+public class RevenueRollupEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name="rollup_date", nullable=false)
+    private LocalDate rollupDate;
+
+    @Column(nullable=false)
+    private String status;
+
+    @Column(name="order_count", nullable=false)
+    private Long orderCount;
+
+    @Column(nullable=false)
+    private Double revenue;
+}
@@ -0,0 +1,40 @@
+package com.ecspring.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Stock set aside for one product of a checkout in progress; the product quantity is already decremented
+@Setter
+@Getter
+@Entity
+@Table(name="stock_holds", indexes = {
+    @Index(name="idx_stock_holds_hold_id", columnList="hold_id"),
+    @Index(name="idx_stock_holds_expires_at", columnList="expires_at")
+})
+@NoArgsConstructor
+public class StockHoldEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Shared by all rows of one checkout
+    @Column(name="hold_id", nullable=false, length=36)
+    private String holdId;
+
+    @Column(name="user_id", nullable=false)
+    private Long userId;
+
+    @Column(name="product_id", nullable=false)
+    private Long productId;
+
+    @Column(nullable=false)
+    private Integer quantity;
+
+    @Column(name="expires_at", nullable=false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,5 @@
+package com.ecspring.events;
+
+// Published inside the checkout transaction, handled only once it commits
+public record OrderCreatedEvent(String orderNumber, Long userId, String username) {
+}
@@ -0,0 +1,68 @@
+package com.ecspring.events;
+
+import com.ecspring.config.AsyncConfig;
+import com.ecspring.entity.OutboxEventEntity;
+import com.ecspring.repositories.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Records order events in the outbox as part of the order's own transaction, so they commit or roll
+// back together with it, and asks the relay to deliver them as soon as the transaction has committed.
+@Component
+public class OrderOutboxListener {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay outboxRelay;
+
+    @Autowired
+    public OrderOutboxListener(OutboxEventRepository outboxEventRepository, OutboxRelay outboxRelay) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxRelay = outboxRelay;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        record("ORDER_CREATED", event.orderNumber(), "PENDING", event.userId(), event.username());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        record("ORDER_UPDATE", event.orderNumber(), event.status(), event.userId(), event.username());
+    }
+
+    // One event, and so one notification, per user however many of their orders a bulk update moved
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onOrderStatusesChanged(OrderStatusesChangedEvent event) {
+        OutboxEventEntity outboxEvent = record("ORDERS_UPDATE", event.orderNumbers().get(0), event.status(),
+                event.userId(), event.username());
+        outboxEvent.setOrderNumbers(String.join(",", event.orderNumbers()));
+    }
+
+    // Off the request thread; the scheduled poll picks up anything this misses
+    @Async(AsyncConfig.NOTIFICATION_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT,
+            classes = {OrderCreatedEvent.class, OrderStatusChangedEvent.class, OrderStatusesChangedEvent.class})
+    public void relayCommittedEvents() {
+        outboxRelay.drain();
+    }
+
+    private OutboxEventEntity record(String type, String orderNumber, String status, Long userId, String username) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEventEntity outboxEvent = new OutboxEventEntity();
+        outboxEvent.setEventId(UUID.randomUUID().toString());
+        outboxEvent.setEventType(type);
+        outboxEvent.setOrderNumber(orderNumber);
+        outboxEvent.setOrderStatus(status);
+        outboxEvent.setUserId(userId);
+        outboxEvent.setUsername(username);
+        outboxEvent.setCreatedAt(now);
+        outboxEvent.setAvailableAt(now);
+        return outboxEventRepository.save(outboxEvent);
+    }
+}
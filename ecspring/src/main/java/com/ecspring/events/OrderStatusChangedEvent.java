@@ -0,0 +1,6 @@
+package com.ecspring.events;
+
+// Published inside the status update transaction, handled only once it commits
+public record OrderStatusChangedEvent(String orderNumber, String previousStatus, String status,
+                                      Long userId, String username) {
+}
@@ -0,0 +1,7 @@
+package com.ecspring.events;
+
+import java.util.List;
+
+// Several orders of one user moved to the same status in one bulk update; notified as a single message
+public record OrderStatusesChangedEvent(List<String> orderNumbers, String status, Long userId, String username) {
+}
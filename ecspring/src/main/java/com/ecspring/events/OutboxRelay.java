@@ -0,0 +1,149 @@
+package com.ecspring.events;
+
+import com.ecspring.entity.OutboxEventEntity;
+import com.ecspring.repositories.OutboxEventRepository;
+import com.ecspring.services.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the outbox into the notification service. Events are leased in short
+ * transactions, delivered outside of them and only then deleted, so a crash at
+ * any point leads to redelivery rather than loss; the notification id carried
+ * by each event keeps redelivery from creating duplicates.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    // How long a relay may hold claimed events before another one takes them over
+    @Value("${app.outbox.lease-seconds:60}")
+    private long leaseSeconds = 60;
+
+    @Value("${app.outbox.retry-delay-seconds:30}")
+    private long retryDelaySeconds = 30;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    @Autowired
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            NotificationService notificationService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.deliveredCounter = Counter.builder("outbox.relay.delivered")
+                .description("Outbox events delivered")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.relay.failed")
+                .description("Outbox delivery attempts that failed and were scheduled for retry")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Time to claim, deliver and settle one outbox batch")
+                .register(meterRegistry);
+    }
+
+    // Safety net for events whose post-commit drain never ran, e.g. after a crash
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        drain();
+    }
+
+    // Delivers everything that is due. Calls that arrive while a drain is running on this
+    // instance just ask it for one more pass, so bursts of commits do not pile up drains.
+    public int drain() {
+        drainRequested.set(true);
+        int relayed = 0;
+        while (drainRequested.get() && draining.compareAndSet(false, true)) {
+            try {
+                drainRequested.set(false);
+                int batch;
+                do {
+                    batch = relayBatch();
+                    relayed += batch;
+                } while (batch == batchSize);
+            } finally {
+                draining.set(false);
+            }
+        }
+        return relayed;
+    }
+
+    private int relayBatch() {
+        return batchTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEventEntity> batch = transactionTemplate.execute(status -> {
+                List<OutboxEventEntity> claimed = outboxEventRepository.findClaimable(
+                        now, maxAttempts, PageRequest.of(0, batchSize));
+                claimed.forEach(event -> event.setAvailableAt(now.plusSeconds(leaseSeconds)));
+                return claimed;
+            });
+
+            List<Long> delivered = new ArrayList<>();
+            List<OutboxEventEntity> failed = new ArrayList<>();
+            for (OutboxEventEntity event : batch) {
+                try {
+                    if ("ORDERS_UPDATE".equals(event.getEventType())) {
+                        notificationService.deliverOrdersNotification(event.getEventId(),
+                                List.of(event.getOrderNumbers().split(",")), event.getOrderStatus(),
+                                event.getUserId(), event.getUsername());
+                    } else {
+                        notificationService.deliverOrderNotification(event.getEventId(), event.getEventType(),
+                                event.getOrderNumber(), event.getOrderStatus(), event.getUserId(), event.getUsername());
+                    }
+                    delivered.add(event.getId());
+                } catch (Exception e) {
+                    log.warn("Failed to deliver outbox event {} for order {}", event.getEventId(), event.getOrderNumber(), e);
+                    failed.add(event);
+                }
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxEventRepository.deleteAllByIdInBatch(delivered);
+                LocalDateTime retryAt = LocalDateTime.now().plusSeconds(retryDelaySeconds);
+                for (OutboxEventEntity event : failed) {
+                    outboxEventRepository.markFailed(event.getId(), retryAt);
+                    if (event.getAttempts() + 1 >= maxAttempts) {
+                        log.error("Giving up on outbox event {} for order {} after {} attempts",
+                                event.getEventId(), event.getOrderNumber(), maxAttempts);
+                    }
+                }
+            });
+
+            deliveredCounter.increment(delivered.size());
+            failedCounter.increment(failed.size());
+            return batch.size();
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecspring.exception;
+
+import com.ecspring.dto.PriceQuoteDto;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The client priced the checkout differently from the current product prices; carries the server's quote
+@Getter
+@ResponseStatus(HttpStatus.CONFLICT)
+public class PriceMismatchException extends RuntimeException {
+
+    private final PriceQuoteDto quote;
+
+    public PriceMismatchException(String message, PriceQuoteDto quote) {
+        super(message);
+        this.quote = quote;
+    }
+}
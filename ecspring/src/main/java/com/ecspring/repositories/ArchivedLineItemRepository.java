@@ -0,0 +1,12 @@
+package com.ecspring.repositories;
+
+import com.ecspring.entity.ArchivedLineItemEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedLineItemRepository extends JpaRepository<ArchivedLineItemEntity, Long> {
+    List<ArchivedLineItemEntity> findByOrderIdOrderById(Long orderId);
+}
@@ -0,0 +1,31 @@
+package com.ecspring.repositories;
+
+import com.ecspring.entity.ArchivedOrderEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrderEntity, Long> {
+
+    @Query("SELECT o FROM ArchivedOrderEntity o JOIN FETCH o.user WHERE o.orderNumber = :orderNumber")
+    Optional<ArchivedOrderEntity> findByOrderNumberWithUser(@Param("orderNumber") String orderNumber);
+
+    // Same cells as OrderRepository.summarizeByStatusBetween, so rebuilt rollups still cover archived history
+    @Query("SELECT CAST(o.orderDate AS LocalDate) AS day, o.status AS status, COUNT(o) AS orderCount, " +
+           "COALESCE(SUM(o.totalAmount), 0) AS revenue " +
+           "FROM ArchivedOrderEntity o " +
+           "WHERE o.orderDate >= :start AND o.orderDate < :end " +
+           "GROUP BY CAST(o.orderDate AS LocalDate), o.status")
+    List<OrderRepository.DayStatusSummary> summarizeByStatusBetween(@Param("start") LocalDateTime start,
+                                                                    @Param("end") LocalDateTime end);
+
+    @Query("SELECT DISTINCT CAST(o.orderDate AS LocalDate) FROM ArchivedOrderEntity o")
+    List<LocalDate> findOrderDays();
+}
@@ -0,0 +1,9 @@
+package com.ecspring.repositories;
+
+import com.ecspring.entity.FeedbackEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FeedbackRepository extends JpaRepository<FeedbackEntity, Long> {
+}
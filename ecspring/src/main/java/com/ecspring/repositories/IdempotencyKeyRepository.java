@@ -0,0 +1,25 @@
+package com.ecspring.repositories;
+
+import com.ecspring.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, Long> {
+    Optional<IdempotencyKeyEntity> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // Frees an expired key for reuse before it is claimed again
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.userId = :userId AND k.idempotencyKey = :idempotencyKey AND k.expiresAt <= :now")
+    int deleteExpiredKey(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,10 @@
+package com.ecspring.repositories;
+
+import com.ecspring.entity.LineItemEntity;
+
+import java.util.List;
+
+public interface LineItemBatchRepository {
+    // Inserts the line items of a saved order in one JDBC batch and assigns their generated ids
+    List<LineItemEntity> insertOrderItems(List<LineItemEntity> items);
+}
@@ -0,0 +1,67 @@
+package com.ecspring.repositories;
+
+import com.ecspring.entity.LineItemEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+// IDENTITY ids keep Hibernate from batching inserts, so order line items go through JDBC directly.
+// With rewriteBatchedStatements the MySQL driver sends the batch as a single multi-row INSERT.
+class LineItemBatchRepositoryImpl implements LineItemBatchRepository {
+
+    private static final String INSERT_ORDER_ITEM_SQL =
+            "INSERT INTO line_items (quantity, unit_price, product_id, order_id) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    LineItemBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<LineItemEntity> insertOrderItems(List<LineItemEntity> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_ORDER_ITEM_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        LineItemEntity item = items.get(i);
+                        ps.setInt(1, item.getQuantity());
+                        if (item.getUnitPrice() != null) {
+                            ps.setDouble(2, item.getUnitPrice());
+                        } else {
+                            ps.setNull(2, Types.DOUBLE);
+                        }
+                        ps.setLong(3, item.getProduct().getId());
+                        ps.setLong(4, item.getOrder().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return items.size();
+                    }
+                },
+                keyHolder);
+
+        // Keys come back in insert order; the column label differs between drivers
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        return items;
+    }
+}
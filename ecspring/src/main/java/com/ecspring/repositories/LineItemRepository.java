@@ -5,14 +5,44 @@ import com.ecspring.entity.LineItemEntity;
 import com.ecspring.entity.OrderEntity;
 import com.ecspring.entity.ProductEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface LineItemRepository extends JpaRepository<LineItemEntity, Long> {
+public interface LineItemRepository extends JpaRepository<LineItemEntity, Long>, LineItemBatchRepository {
     List<LineItemEntity> findByOrder(OrderEntity order);
+
+    // Load the line items of many orders at once, with their products, for bulk order assembly
+    @Query("SELECT li FROM LineItemEntity li JOIN FETCH li.product WHERE li.order IN :orders")
+    List<LineItemEntity> findByOrderInWithProduct(@Param("orders") Collection<OrderEntity> orders);
+
+    // Product quantities of one order, for returning or retaking its stock on (un)cancellation
+    @Query("SELECT li.product.id AS productId, li.quantity AS quantity FROM LineItemEntity li WHERE li.order.id = :orderId")
+    List<ProductQuantity> findProductQuantitiesByOrderId(@Param("orderId") Long orderId);
+
+    @Query("SELECT li.product.id AS productId, li.quantity AS quantity FROM LineItemEntity li WHERE li.order.id IN :orderIds")
+    List<ProductQuantity> findProductQuantitiesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
     List<LineItemEntity> findByCart(CartEntity cart);
     Optional<LineItemEntity> findByCartAndProduct(CartEntity cart, ProductEntity product);
+
+    // Orders that backfillUnitPrices is about to touch, read first so their totals can be recomputed after
+    @Query("SELECT DISTINCT li.order.id FROM LineItemEntity li WHERE li.unitPrice IS NULL AND li.order IS NOT NULL")
+    List<Long> findOrderIdsWithoutUnitPrices();
+
+    @Modifying
+    @Query("UPDATE LineItemEntity li SET li.unitPrice = (SELECT p.price FROM ProductEntity p WHERE p = li.product) " +
+           "WHERE li.unitPrice IS NULL AND li.order IS NOT NULL")
+    int backfillUnitPrices();
+
+    interface ProductQuantity {
+        Long getProductId();
+        Integer getQuantity();
+    }
 }
@@ -2,19 +2,107 @@ package com.ecspring.repositories;
 
 import com.ecspring.entity.OrderEntity;
 import com.ecspring.entity.UserEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
+public interface OrderRepository extends JpaRepository<OrderEntity, Long>, JpaSpecificationExecutor<OrderEntity>,
+        OrderStatusBatchRepository {
     List<OrderEntity> findByUser(UserEntity user);
+    Optional<OrderEntity> findByOrderNumber(String orderNumber);
+
+    // Listing queries fetch the owning user in the same statement, since every OrderDto needs it
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT o FROM OrderEntity o")
+    List<OrderEntity> findAllWithUser();
+
+    @EntityGraph(attributePaths = "user")
     List<OrderEntity> findByStatus(String status);
+
+    @EntityGraph(attributePaths = "user")
     List<OrderEntity> findByOrderDateBetween(LocalDateTime startDate, LocalDateTime endDate);
-    Optional<OrderEntity> findByOrderNumber(String orderNumber);
+
+    @EntityGraph(attributePaths = "user")
     List<OrderEntity> findByUserOrderByOrderDateDesc(UserEntity user);
+
+    @EntityGraph(attributePaths = "user")
     List<OrderEntity> findByUserAndStatusOrderByOrderDateDesc(UserEntity user, String status);
+
+    // Everything the order page shows in one statement: the user, the line items and their products
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    @Query("SELECT o FROM OrderEntity o WHERE o.id = :id")
+    Optional<OrderEntity> findDetailedById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    @Query("SELECT o FROM OrderEntity o WHERE o.orderNumber = :orderNumber")
+    Optional<OrderEntity> findDetailedByOrderNumber(@Param("orderNumber") String orderNumber);
+
+    // Ownership and current status in one narrow query, for authorizing and applying status changes
+    @Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status, o.orderDate AS orderDate, " +
+           "o.totalAmount AS totalAmount, u.id AS userId, u.username AS username " +
+           "FROM OrderEntity o JOIN o.user u WHERE o.id = :id")
+    Optional<OrderStatusView> findStatusViewById(@Param("id") Long id);
+
+    @Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status, o.orderDate AS orderDate, " +
+           "o.totalAmount AS totalAmount, u.id AS userId, u.username AS username " +
+           "FROM OrderEntity o JOIN o.user u WHERE o.id IN :ids")
+    List<OrderStatusView> findStatusViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Compare-and-set: changes the status only if nobody changed it since it was read, returns 0 otherwise
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEntity o SET o.status = :status WHERE o.id = :id AND o.status = :expectedStatus")
+    int compareAndSetStatus(@Param("id") Long id, @Param("expectedStatus") String expectedStatus, @Param("status") String status);
+
+    // Recomputes one day's (status) revenue cells from the raw orders, used to rebuild the rollups
+    @Query("SELECT CAST(o.orderDate AS LocalDate) AS day, o.status AS status, COUNT(o) AS orderCount, " +
+           "COALESCE(SUM(o.totalAmount), 0) AS revenue " +
+           "FROM OrderEntity o " +
+           "WHERE o.orderDate >= :start AND o.orderDate < :end " +
+           "GROUP BY CAST(o.orderDate AS LocalDate), o.status")
+    List<DayStatusSummary> summarizeByStatusBetween(@Param("start") LocalDateTime start,
+                                                    @Param("end") LocalDateTime end);
+
+    @Query("SELECT DISTINCT CAST(o.orderDate AS LocalDate) FROM OrderEntity o")
+    List<LocalDate> findOrderDays();
+
+    @Modifying
+    @Query("UPDATE OrderEntity o SET o.totalAmount = " +
+           "(SELECT COALESCE(SUM(li.quantity * li.unitPrice), 0) FROM LineItemEntity li WHERE li.order = o) " +
+           "WHERE o.totalAmount IS NULL")
+    int backfillTotalAmounts();
+
+    // Replaces whatever total the client sent with the sum of the server-side line prices
+    @Modifying
+    @Query("UPDATE OrderEntity o SET o.totalAmount = " +
+           "(SELECT COALESCE(SUM(li.quantity * li.unitPrice), 0) FROM LineItemEntity li WHERE li.order = o) " +
+           "WHERE o.id IN :ids")
+    int recomputeTotalAmounts(@Param("ids") Collection<Long> ids);
+
+    interface OrderStatusView {
+        Long getId();
+        String getOrderNumber();
+        String getStatus();
+        LocalDateTime getOrderDate();
+        Double getTotalAmount();
+        Long getUserId();
+        String getUsername();
+    }
+
+    interface DayStatusSummary {
+        LocalDate getDay();
+        String getStatus();
+        Long getOrderCount();
+        Double getRevenue();
+    }
 }
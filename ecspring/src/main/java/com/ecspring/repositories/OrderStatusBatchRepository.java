@@ -0,0 +1,12 @@
+package com.ecspring.repositories;
+
+import java.util.List;
+
+public interface OrderStatusBatchRepository {
+    // Compare-and-set of many order statuses in one JDBC batch. Element i of the result is 1 if
+    // transitions.get(i) was applied and 0 if that order was no longer in its expected status.
+    int[] compareAndSetStatuses(List<StatusTransition> transitions);
+
+    record StatusTransition(Long orderId, String expectedStatus, String status) {
+    }
+}
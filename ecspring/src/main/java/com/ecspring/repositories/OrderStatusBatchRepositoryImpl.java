@@ -0,0 +1,33 @@
+package com.ecspring.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+// One statement per order keeps the per-order outcome that a single UPDATE ... WHERE id IN (...) would lose.
+// With rewriteBatchedStatements the MySQL driver sends the whole batch in one round trip.
+class OrderStatusBatchRepositoryImpl implements OrderStatusBatchRepository {
+
+    private static final String COMPARE_AND_SET_STATUS_SQL =
+            "UPDATE orders SET status = ? WHERE id = ? AND status = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    OrderStatusBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int[] compareAndSetStatuses(List<StatusTransition> transitions) {
+        if (transitions.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(COMPARE_AND_SET_STATUS_SQL, transitions, transitions.size(), (ps, transition) -> {
+            ps.setString(1, transition.status());
+            ps.setLong(2, transition.orderId());
+            ps.setString(3, transition.expectedStatus());
+        })[0];
+    }
+}
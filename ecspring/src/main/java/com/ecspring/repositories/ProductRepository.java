@@ -6,8 +6,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,4 +25,42 @@ public interface ProductRepository extends JpaRepository<ProductEntity, Long>, J
     List<ProductEntity> findByQuantityGreaterThan(Integer quantity);
 
     Page<ProductEntity> findByQuantityGreaterThan(Integer quantity, Pageable pageable);
+
+    List<ProductEntity> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.price AS price, " +
+            "p.quantity AS quantity, p.imageUrl AS imageUrl, p.imageName AS imageName, p.ratingCount AS ratingCount, " +
+            "p.ratingSum AS ratingSum FROM ProductEntity p")
+    List<CatalogEntry> findCatalogEntries();
+
+    // Atomically adjust the rating totals, so concurrent reviews of one product are all counted
+    @Modifying
+    @Query("UPDATE ProductEntity p SET p.ratingCount = p.ratingCount + :countDelta, " +
+            "p.ratingSum = p.ratingSum + :sumDelta WHERE p.id = :id")
+    int addRating(@Param("id") Long id, @Param("countDelta") int countDelta, @Param("sumDelta") long sumDelta);
+
+    // Recompute the rating totals from the feedbacks, returns the number of products that had drifted
+    @Modifying
+    @Query(value = "UPDATE products p SET " +
+                   "rating_count = (SELECT COUNT(*) FROM feedbacks f WHERE f.product_id = p.id), " +
+                   "rating_sum = (SELECT COALESCE(SUM(f.star), 0) FROM feedbacks f WHERE f.product_id = p.id) " +
+                   "WHERE p.rating_count <> (SELECT COUNT(*) FROM feedbacks f WHERE f.product_id = p.id) " +
+                   "OR p.rating_sum <> (SELECT COALESCE(SUM(f.star), 0) FROM feedbacks f WHERE f.product_id = p.id)",
+           nativeQuery = true)
+    int rebuildRatings();
+
+    @Query("SELECT COALESCE(SUM(p.ratingCount), 0) FROM ProductEntity p")
+    long sumRatingCounts();
+
+    interface CatalogEntry {
+        Long getId();
+        String getName();
+        String getDescription();
+        Double getPrice();
+        Integer getQuantity();
+        String getImageUrl();
+        String getImageName();
+        Integer getRatingCount();
+        Long getRatingSum();
+    }
 }
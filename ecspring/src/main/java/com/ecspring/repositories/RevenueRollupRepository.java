@@ -0,0 +1,48 @@
+package com.ecspring.repositories;
+
+import com.ecspring.entity.RevenueRollupEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollupEntity, Long> {
+
+    // Atomically add a delta to a (day, status) cell, creating the cell on first use
+    @Modifying
+    @Query(value = "INSERT INTO revenue_rollups (rollup_date, status, order_count, revenue) " +
+                   "VALUES (:rollupDate, :status, :orderCount, :revenue) " +
+                   "ON DUPLICATE KEY UPDATE order_count = order_count + :orderCount, revenue = revenue + :revenue",
+           nativeQuery = true)
+    void addToRollup(@Param("rollupDate") LocalDate rollupDate,
+                     @Param("status") String status,
+                     @Param("orderCount") long orderCount,
+                     @Param("revenue") double revenue);
+
+    // Locks one day's cells, so incremental updates to that day wait until its rebuild has committed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RevenueRollupEntity r WHERE r.rollupDate = :day")
+    List<RevenueRollupEntity> findByRollupDateForUpdate(@Param("day") LocalDate day);
+
+    @Query("SELECT DISTINCT r.rollupDate FROM RevenueRollupEntity r")
+    List<LocalDate> findRollupDates();
+
+    @Query("SELECT r.status AS status, SUM(r.orderCount) AS orderCount, SUM(r.revenue) AS revenue " +
+           "FROM RevenueRollupEntity r GROUP BY r.status")
+    List<StatusSummary> summarizeByStatus();
+
+    List<RevenueRollupEntity> findByStatusAndRollupDateBetween(String status, LocalDate startDate, LocalDate endDate);
+
+    interface StatusSummary {
+        String getStatus();
+        Long getOrderCount();
+        Double getRevenue();
+    }
+}
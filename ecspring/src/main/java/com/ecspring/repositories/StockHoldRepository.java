@@ -0,0 +1,24 @@
+package com.ecspring.repositories;
+
+import com.ecspring.entity.StockHoldEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHoldEntity, Long> {
+    List<StockHoldEntity> findByHoldId(String holdId);
+
+    List<StockHoldEntity> findByExpiresAtBeforeOrderById(LocalDateTime now, Pageable pageable);
+
+    // Consumes a hold only while it is still live; a count short of the hold's rows means it expired meanwhile
+    @Modifying
+    @Query("DELETE FROM StockHoldEntity h WHERE h.holdId = :holdId AND h.expiresAt > :now")
+    int deleteLiveHold(@Param("holdId") String holdId, @Param("now") LocalDateTime now);
+}
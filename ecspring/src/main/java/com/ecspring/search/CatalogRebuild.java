@@ -0,0 +1,35 @@
+package com.ecspring.search;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Rebuilds an in-memory view of the products from the database without undoing
+ * product writes that commit while the products are being read. Writes to the
+ * view go through {@link #write}; a rebuild that overlaps one reads again.
+ */
+final class CatalogRebuild {
+
+    private long generation;
+
+    synchronized void write(Runnable change) {
+        generation++;
+        change.run();
+    }
+
+    <T> T run(Supplier<T> load, Consumer<T> install) {
+        while (true) {
+            long loadedAt;
+            synchronized (this) {
+                loadedAt = generation;
+            }
+            T loaded = load.get();
+            synchronized (this) {
+                if (generation == loadedAt) {
+                    install.accept(loaded);
+                    return loaded;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.ecspring.search;
+
+import com.ecspring.cache.AfterCommit;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process Lucene index over product names and descriptions, held in memory
+ * and rebuilt from the database by {@link ProductSearchRefresher}. Every search
+ * term must match, as a whole word, a prefix or, for longer terms, within one
+ * or two typos; name matches rank above description matches. Accents are
+ * folded, so "banh mi" finds "Bánh mì".
+ */
+@Component
+public class LuceneProductSearchIndex implements ProductSearchIndex {
+
+    private static final String ID = "id";
+    private static final String ID_ORDER = "id_order";
+    private static final String NAME = "name";
+    private static final String DESCRIPTION = "description";
+
+    // Shorter terms match only exactly or as a prefix, fuzzy matches of them are mostly noise
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MIN_TWO_EDITS_LENGTH = 8;
+
+    // Best score first, equal scores in product order so results are stable
+    private static final Sort RELEVANCE = new Sort(SortField.FIELD_SCORE, new SortField(ID_ORDER, SortField.Type.LONG));
+
+    private final ProductRepository productRepository;
+    private final Analyzer analyzer = new FoldingAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    private final CatalogRebuild catalogRebuild = new CatalogRebuild();
+
+    @Autowired
+    public LuceneProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        try {
+            this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the product search index", e);
+        }
+    }
+
+    @Override
+    public List<Long> search(String text, int limit) {
+        Query query = buildQuery(text);
+        if (query == null) {
+            return List.of();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>();
+                for (ScoreDoc hit : searcher.search(query, limit, RELEVANCE, true).scoreDocs) {
+                    ids.add(Long.valueOf(storedFields.document(hit.doc).get(ID)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Product search failed", e);
+        }
+    }
+
+    @Override
+    public void put(ProductEntity product) {
+        Long id = product.getId();
+        Document document = document(id, product.getName(), product.getDescription());
+        AfterCommit.run(() -> write(() -> writer.updateDocument(new Term(ID, id.toString()), document)));
+    }
+
+    @Override
+    public void remove(Long productId) {
+        AfterCommit.run(() -> write(() -> writer.deleteDocuments(new Term(ID, productId.toString()))));
+    }
+
+    @Override
+    public int rebuild() {
+        return catalogRebuild.run(productRepository::findCatalogEntries, products -> change(() -> {
+            writer.deleteAll();
+            for (ProductRepository.CatalogEntry product : products) {
+                writer.addDocument(document(product.getId(), product.getName(), product.getDescription()));
+            }
+        })).size();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+
+    private Query buildQuery(String text) {
+        List<String> terms = analyze(text == null ? "" : text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            BooleanQuery.Builder anyMatch = new BooleanQuery.Builder();
+            anyMatch.add(new BoostQuery(new TermQuery(new Term(NAME, term)), 4f), BooleanClause.Occur.SHOULD);
+            anyMatch.add(new BoostQuery(new PrefixQuery(new Term(NAME, term)), 2f), BooleanClause.Occur.SHOULD);
+            anyMatch.add(new TermQuery(new Term(DESCRIPTION, term)), BooleanClause.Occur.SHOULD);
+            anyMatch.add(new BoostQuery(new PrefixQuery(new Term(DESCRIPTION, term)), 0.5f),
+                    BooleanClause.Occur.SHOULD);
+            if (term.length() >= MIN_FUZZY_LENGTH) {
+                int maxEdits = term.length() >= MIN_TWO_EDITS_LENGTH ? 2 : 1;
+                anyMatch.add(new FuzzyQuery(new Term(NAME, term), maxEdits), BooleanClause.Occur.SHOULD);
+                anyMatch.add(new BoostQuery(new FuzzyQuery(new Term(DESCRIPTION, term), maxEdits), 0.25f),
+                        BooleanClause.Occur.SHOULD);
+            }
+            query.add(anyMatch.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private static Document document(Long id, String name, String description) {
+        Document document = new Document();
+        document.add(new StringField(ID, id.toString(), Field.Store.YES));
+        document.add(new NumericDocValuesField(ID_ORDER, id));
+        document.add(new TextField(NAME, name, Field.Store.NO));
+        if (description != null) {
+            document.add(new TextField(DESCRIPTION, description, Field.Store.NO));
+        }
+        return document;
+    }
+
+    private void write(IndexChange change) {
+        catalogRebuild.write(() -> change(change));
+    }
+
+    // Applies a write and makes it visible to the next search
+    private synchronized void change(IndexChange change) {
+        try {
+            change.apply();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not update the product search index", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexChange {
+        void apply() throws IOException;
+    }
+
+    // Lower-cased, accent-folded words
+    private static final class FoldingAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+    }
+}
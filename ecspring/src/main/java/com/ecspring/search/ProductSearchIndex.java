@@ -0,0 +1,18 @@
+package com.ecspring.search;
+
+import com.ecspring.entity.ProductEntity;
+
+import java.util.List;
+
+// Full-text search over product names and descriptions, kept in step with product writes
+public interface ProductSearchIndex {
+    // Ids of the best matching products, most relevant first
+    List<Long> search(String text, int limit);
+
+    // Changes become searchable once the current transaction commits
+    void put(ProductEntity product);
+    void remove(Long productId);
+
+    // Re-index every product from the database, returning how many were indexed
+    int rebuild();
+}
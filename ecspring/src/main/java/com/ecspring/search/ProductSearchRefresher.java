@@ -0,0 +1,40 @@
+package com.ecspring.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the search index and the suggestions from the database on startup
+ * and then periodically, like the product catalog cache, so product writes
+ * made outside the application show up.
+ */
+@Slf4j
+@Component
+public class ProductSearchRefresher {
+
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggester productSuggester;
+
+    @Autowired
+    public ProductSearchRefresher(ProductSearchIndex productSearchIndex, ProductSuggester productSuggester) {
+        this.productSearchIndex = productSearchIndex;
+        this.productSuggester = productSuggester;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        log.info("Indexed {} products for search and {} for suggestions",
+                productSearchIndex.rebuild(), productSuggester.rebuild());
+    }
+
+    @Scheduled(fixedDelayString = "${app.product-catalog.refresh-ms:300000}",
+            initialDelayString = "${app.product-catalog.refresh-ms:300000}")
+    public void refresh() {
+        log.debug("Re-indexed {} products for search and {} for suggestions",
+                productSearchIndex.rebuild(), productSuggester.rebuild());
+    }
+}
@@ -0,0 +1,171 @@
+package com.ecspring.search;
+
+import com.ecspring.dto.ProductSuggestionDto;
+import com.ecspring.cache.AfterCommit;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Typeahead over product names, answered from memory. Each name is stored
+ * under every word it contains, together with the rest of the name from that
+ * word on, in one sorted array; all keys starting with the typed text are then
+ * a contiguous run found by binary search. Names matching from their first
+ * word rank first, then alphabetically. Product writes patch the array once
+ * they commit, and {@link ProductSearchRefresher} rebuilds it from the database.
+ */
+@Component
+public class ProductSuggester {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::text).thenComparing(Key::productId);
+    private static final Comparator<Match> RANKING = Comparator.comparing(Match::fromFirstWord).reversed()
+            .thenComparing(Match::sortName)
+            .thenComparing(Match::productId);
+
+    private final ProductRepository productRepository;
+
+    private volatile Suggestions suggestions = new Suggestions(List.of(), Map.of());
+
+    private final CatalogRebuild catalogRebuild = new CatalogRebuild();
+
+    @Autowired
+    public ProductSuggester(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public List<ProductSuggestionDto> suggest(String prefix, int limit) {
+        String text = normalize(prefix);
+        if (text.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Suggestions current = suggestions;
+
+        // Best match per product within the run of keys starting with the text
+        Map<Long, Boolean> fromFirstWord = new LinkedHashMap<>();
+        for (int i = firstAtLeast(current.keys(), text); i < current.keys().size(); i++) {
+            Key key = current.keys().get(i);
+            if (!key.text().startsWith(text)) {
+                break;
+            }
+            fromFirstWord.merge(key.productId(), key.firstWord(), Boolean::logicalOr);
+        }
+
+        List<Match> matches = new ArrayList<>(fromFirstWord.size());
+        fromFirstWord.forEach((productId, first) -> {
+            String name = current.names().get(productId);
+            matches.add(new Match(productId, name, normalize(name), first));
+        });
+        matches.sort(RANKING);
+        return matches.stream()
+                .limit(limit)
+                .map(match -> new ProductSuggestionDto(match.productId(), match.name()))
+                .toList();
+    }
+
+    // Reloads every name from the database, returning how many products have suggestions
+    public int rebuild() {
+        return catalogRebuild.run(this::load, loaded -> suggestions = loaded).names().size();
+    }
+
+    private Suggestions load() {
+        Map<Long, String> names = new HashMap<>();
+        for (ProductRepository.CatalogEntry product : productRepository.findCatalogEntries()) {
+            names.put(product.getId(), product.getName());
+        }
+        List<Key> keys = new ArrayList<>();
+        names.forEach((productId, name) -> keys.addAll(keys(productId, name)));
+        keys.sort(KEY_ORDER);
+        return new Suggestions(Collections.unmodifiableList(keys), Collections.unmodifiableMap(names));
+    }
+
+    // Created or renamed product
+    public void put(ProductEntity product) {
+        Long productId = product.getId();
+        String name = product.getName();
+        AfterCommit.run(() -> catalogRebuild.write(() -> replace(productId, name)));
+    }
+
+    public void remove(Long productId) {
+        AfterCommit.run(() -> catalogRebuild.write(() -> replace(productId, null)));
+    }
+
+    // Swaps in a copy without the product's old keys and, unless it was deleted, with its new ones
+    private void replace(Long productId, String name) {
+        Suggestions current = suggestions;
+        List<Key> keys = new ArrayList<>(current.keys().size() + 8);
+        for (Key key : current.keys()) {
+            if (!key.productId().equals(productId)) {
+                keys.add(key);
+            }
+        }
+        Map<Long, String> names = new HashMap<>(current.names());
+        names.remove(productId);
+        if (name != null) {
+            names.put(productId, name);
+            for (Key key : keys(productId, name)) {
+                int insertAt = Collections.binarySearch(keys, key, KEY_ORDER);
+                keys.add(insertAt < 0 ? -insertAt - 1 : insertAt, key);
+            }
+        }
+        suggestions = new Suggestions(Collections.unmodifiableList(keys), Collections.unmodifiableMap(names));
+    }
+
+    private static List<Key> keys(Long productId, String name) {
+        String[] words = normalize(name).split(" ");
+        List<Key> keys = new ArrayList<>(words.length);
+        for (int i = 0; i < words.length; i++) {
+            if (!words[i].isEmpty()) {
+                keys.add(new Key(String.join(" ", List.of(words).subList(i, words.length)), productId, i == 0));
+            }
+        }
+        return keys;
+    }
+
+    // Lower-cased words without accents, separated by single spaces
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .replace('đ', 'd').replace('Đ', 'D')
+                .toLowerCase();
+        return NON_WORD.matcher(folded).replaceAll(" ").trim();
+    }
+
+    private static int firstAtLeast(List<Key> keys, String text) {
+        int low = 0;
+        int high = keys.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys.get(mid).text().compareTo(text) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private record Key(String text, Long productId, boolean firstWord) {
+    }
+
+    private record Match(Long productId, String name, String sortName, boolean fromFirstWord) {
+    }
+
+    private record Suggestions(List<Key> keys, Map<Long, String> names) {
+    }
+}
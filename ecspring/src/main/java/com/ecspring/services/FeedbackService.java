@@ -0,0 +1,8 @@
+package com.ecspring.services;
+
+import com.ecspring.dto.FeedbackDto;
+import com.ecspring.dto.FeedbackRequestDto;
+
+public interface FeedbackService {
+    FeedbackDto addFeedback(String username, Long productId, FeedbackRequestDto feedbackRequest);
+}
@@ -0,0 +1,15 @@
+package com.ecspring.services;
+
+import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.OrderDto;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    // Runs the checkout once per user and key. Retries with the same key and request get the stored
+    // order back without running it again; the same key with a different request throws IdempotencyKeyConflictException.
+    OrderDto checkoutOnce(Long userId, String idempotencyKey, CheckoutRequestDto checkoutRequest, Supplier<OrderDto> checkout);
+
+    // Deletes keys past their TTL, returns the number removed
+    int purgeExpiredKeys();
+}
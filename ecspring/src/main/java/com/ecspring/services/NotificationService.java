@@ -2,9 +2,21 @@ package com.ecspring.services;
 
 import com.ecspring.dto.NotificationDto;
 
+import java.util.List;
+
 public interface NotificationService {
     void sendOrderNotification(NotificationDto notification);
     void sendOrderUpdateNotification(String orderNumber, String orderStatus, Long userId, String username);
     void sendOrderCreatedNotification(String orderNumber, Long userId, String username);
+
+    // At-least-once delivery from the outbox: persisted once per id, but broadcast on every attempt so a retry
+    // after a failed send still reaches the user; clients drop ids they already have. Throws on failure so the
+    // caller can retry
+    void deliverOrderNotification(String notificationId, String type, String orderNumber, String orderStatus,
+                                  Long userId, String username);
+
+    // Same guarantees, for one message covering several orders of the user that moved to the same status
+    void deliverOrdersNotification(String notificationId, List<String> orderNumbers, String orderStatus,
+                                   Long userId, String username);
 }
 
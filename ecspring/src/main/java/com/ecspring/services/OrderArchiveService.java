@@ -0,0 +1,14 @@
+package com.ecspring.services;
+
+import com.ecspring.dto.OrderDto;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface OrderArchiveService {
+    // Moves delivered orders placed before the cutoff, with their line items and invoices, to the
+    // archive tables, one chunk per transaction. Returns the number of orders archived.
+    int archiveOrdersPlacedBefore(LocalDateTime cutoff);
+
+    Optional<OrderDto> findArchivedOrder(String orderNumber);
+}
@@ -0,0 +1,13 @@
+package com.ecspring.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface OrderExportService {
+    enum Format { CSV, NDJSON }
+
+    // Streams every order placed in the range, with its line items, straight to out; memory use does not
+    // depend on the size of the range. Returns the number of orders written.
+    long exportOrders(LocalDateTime startDate, LocalDateTime endDate, Format format, OutputStream out) throws IOException;
+}
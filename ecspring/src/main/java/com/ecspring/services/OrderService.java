@@ -1,7 +1,13 @@
 package com.ecspring.services;
 
+import com.ecspring.dto.BulkStatusUpdateResultDto;
 import com.ecspring.dto.OrderDto;
+import com.ecspring.dto.OrderPageDto;
+import com.ecspring.dto.OrderStatusDto;
+import com.ecspring.dto.PriceQuoteDto;
 import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.StockHoldDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -10,6 +16,10 @@ import java.util.Map;
 public interface OrderService {
     OrderDto createOrderFromCart(Long userId);
     OrderDto createOrderFromRequest(String username, CheckoutRequestDto checkoutRequest);
+    StockHoldDto holdStock(String username, List<CheckoutOrderItemDto> orderItems);
+
+    // Prices the items at the current product prices without placing or reserving anything, for cart previews
+    PriceQuoteDto quoteOrder(List<CheckoutOrderItemDto> orderItems);
     OrderDto getOrderById(Long id);
     OrderDto getOrderByOrderNumber(String orderNumber);
     List<OrderDto> getAllOrders();
@@ -17,13 +27,26 @@ public interface OrderService {
     List<OrderDto> getOrdersByUserAndStatus(Long userId, String status);
     List<OrderDto> getOrdersByStatus(String status);
     List<OrderDto> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate);
-    OrderDto updateOrderStatus(Long id, String status);
+    OrderStatusDto getOrderStatus(Long id);
+    OrderStatusDto updateOrderStatus(Long id, String status);
+
+    // Applies the change only if the order is still in expectedStatus; throws OrderStatusConflictException
+    // if the transition is not allowed or the order changed in the meantime
+    OrderStatusDto transitionOrderStatus(Long id, String expectedStatus, String status);
+
+    // Moves many orders to one status in a single transaction and reports the outcome per order; orders
+    // that cannot make the transition (or are not in expectedStatus, if given) are skipped, not fatal
+    BulkStatusUpdateResultDto bulkUpdateOrderStatus(List<Long> orderIds, String expectedStatus, String status);
     void deleteOrder(Long id);
     String generateOrderNumber();
 
     // Add these new methods that work with username
     List<OrderDto> getOrdersByUsername(String username);
     List<OrderDto> getOrdersByUsernameAndStatus(String username, String status);
+
+    // Keyset-paginated listings, newest first; filters are optional and cursor is null for the first page
+    OrderPageDto getOrdersPage(String status, LocalDateTime startDate, LocalDateTime endDate, String cursor, int size);
+    OrderPageDto getOrdersPageByUsername(String username, String status, LocalDateTime startDate, LocalDateTime endDate, String cursor, int size);
     
     // Analytics methods
     Map<String, Object> getRevenueAnalytics();
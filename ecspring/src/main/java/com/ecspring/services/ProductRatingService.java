@@ -0,0 +1,9 @@
+package com.ecspring.services;
+
+public interface ProductRatingService {
+    // Incremental maintenance, called in the same transaction as the feedback change
+    void recordRating(Long productId, int star);
+
+    // Recompute all rating totals from the raw feedbacks, returns the number of products that had to be corrected
+    int rebuildRatings();
+}
@@ -1,7 +1,9 @@
 package com.ecspring.services;
 
 import com.ecspring.entity.ProductEntity;
+import com.ecspring.dto.ProductDto;
 import com.ecspring.dto.ProductFilterDto;
+import com.ecspring.dto.ProductSuggestionDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
@@ -10,15 +12,17 @@ import java.util.List;
 import java.util.Optional;
 
 public interface ProductService {
-    List<ProductEntity> getAllProducts();
+    List<ProductDto> getAllProducts();
 
-    Optional<ProductEntity> getProductById(Long id);
+    Optional<ProductDto> getProductById(Long id);
 
-    List<ProductEntity> searchProductsByName(String name);
+    List<ProductDto> searchProductsByName(String name);
 
-    List<ProductEntity> getProductsByPriceRange(Double minPrice, Double maxPrice);
+    List<ProductSuggestionDto> suggestProducts(String prefix, int limit);
 
-    List<ProductEntity> getProductsInStock();
+    List<ProductDto> getProductsByPriceRange(Double minPrice, Double maxPrice);
+
+    List<ProductDto> getProductsInStock();
 
     ProductEntity createProduct(ProductEntity product);
 
@@ -28,5 +32,5 @@ public interface ProductService {
 
     ProductEntity uploadProductImage(Long id, MultipartFile file);
 
-    Page<ProductEntity> filterProducts(ProductFilterDto filterDto, Pageable pageable);
+    Page<ProductDto> filterProducts(ProductFilterDto filterDto, Pageable pageable);
 }
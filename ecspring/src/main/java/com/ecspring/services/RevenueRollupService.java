@@ -0,0 +1,21 @@
+package com.ecspring.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevenueRollupService {
+    // Incremental maintenance, called in the same transaction as the order change
+    void recordOrderCreated(LocalDateTime orderDate, String status, double orderTotal);
+    void recordStatusChange(LocalDateTime orderDate, String oldStatus, String newStatus, double orderTotal);
+    void recordOrderDeleted(LocalDateTime orderDate, String status, double orderTotal);
+
+    // recordStatusChange for many orders, with one upsert per affected (day, status) cell
+    void recordStatusChanges(List<StatusChange> changes);
+
+    // Recompute all rollups from the raw orders, one day per transaction, returns the number of cells
+    // that had to be corrected
+    int rebuildRollups();
+
+    record StatusChange(LocalDateTime orderDate, String oldStatus, String newStatus, double orderTotal) {
+    }
+}
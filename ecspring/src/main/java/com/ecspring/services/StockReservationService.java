@@ -0,0 +1,23 @@
+package com.ecspring.services;
+
+import com.ecspring.dto.StockHoldDto;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+public interface StockReservationService {
+    // Takes stock for every product in ascending id order, throws IllegalStateException if any would oversell
+    void reserve(SortedMap<Long, Integer> quantities);
+
+    // Returns stock, e.g. for a cancelled order
+    void release(SortedMap<Long, Integer> quantities);
+
+    // Takes stock now and keeps it aside for the user until the hold is confirmed or expires
+    StockHoldDto createHold(Long userId, SortedMap<Long, Integer> quantities);
+
+    // Consumes a live hold for exactly these quantities; the stock stays taken for the order
+    void confirmHold(String holdId, Long userId, Map<Long, Integer> quantities);
+
+    // Returns the stock of expired holds, returns the number of hold rows released
+    int releaseExpiredHolds();
+}
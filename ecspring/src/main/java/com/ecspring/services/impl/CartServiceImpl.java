@@ -1,6 +1,8 @@
 package com.ecspring.services.impl;
 
 import com.ecspring.dto.*;
+import com.ecspring.cache.ProductCatalogCache;
+import com.ecspring.cache.ProductSnapshot;
 import com.ecspring.entity.CartEntity;
 import com.ecspring.entity.LineItemEntity;
 import com.ecspring.entity.ProductEntity;
@@ -27,17 +29,20 @@ public class CartServiceImpl implements CartService {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final LineItemRepository lineItemRepository;
+    private final ProductCatalogCache productCatalogCache;
 
     @Autowired
     public CartServiceImpl(
             CartRepository cartRepository,
             UserRepository userRepository,
             ProductRepository productRepository,
-            LineItemRepository lineItemRepository) {
+            LineItemRepository lineItemRepository,
+            ProductCatalogCache productCatalogCache) {
         this.cartRepository = cartRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.lineItemRepository = lineItemRepository;
+        this.productCatalogCache = productCatalogCache;
     }
 
     @Override
@@ -197,6 +202,12 @@ public class CartServiceImpl implements CartService {
 
     @Override
     public boolean isProductInStock(Long productId, Integer quantity) {
+        // Answered from memory; held stock is already taken out of the available quantity
+        Optional<ProductSnapshot> cached = productCatalogCache.findById(productId);
+        if (cached.isPresent()) {
+            return cached.get().quantity() >= quantity;
+        }
+
         ProductEntity product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
         
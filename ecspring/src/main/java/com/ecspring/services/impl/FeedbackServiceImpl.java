@@ -0,0 +1,57 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.FeedbackDto;
+import com.ecspring.dto.FeedbackRequestDto;
+import com.ecspring.entity.FeedbackEntity;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.exception.ResourceNotFoundException;
+import com.ecspring.repositories.FeedbackRepository;
+import com.ecspring.repositories.ProductRepository;
+import com.ecspring.repositories.UserRepository;
+import com.ecspring.services.FeedbackService;
+import com.ecspring.services.ProductRatingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class FeedbackServiceImpl implements FeedbackService {
+
+    private final FeedbackRepository feedbackRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final ProductRatingService productRatingService;
+
+    @Autowired
+    public FeedbackServiceImpl(FeedbackRepository feedbackRepository, ProductRepository productRepository,
+                               UserRepository userRepository, ProductRatingService productRatingService) {
+        this.feedbackRepository = feedbackRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.productRatingService = productRatingService;
+    }
+
+    @Override
+    @Transactional
+    public FeedbackDto addFeedback(String username, Long productId, FeedbackRequestDto feedbackRequest) {
+        UserEntity user = userRepository.findByUsername(username);
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found: " + username);
+        }
+        ProductEntity product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+
+        FeedbackEntity feedback = new FeedbackEntity();
+        feedback.setUser(user);
+        feedback.setProduct(product);
+        feedback.setStar(feedbackRequest.getStar());
+        feedback.setContent(feedbackRequest.getContent());
+        feedback = feedbackRepository.save(feedback);
+
+        productRatingService.recordRating(productId, feedback.getStar());
+
+        return new FeedbackDto(feedback.getId(), productId, user.getUsername(), feedback.getStar(),
+                feedback.getContent());
+    }
+}
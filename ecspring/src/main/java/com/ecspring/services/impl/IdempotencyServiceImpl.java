@@ -0,0 +1,142 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.OrderDto;
+import com.ecspring.entity.IdempotencyKeyEntity;
+import com.ecspring.exception.IdempotencyKeyConflictException;
+import com.ecspring.repositories.IdempotencyKeyRepository;
+import com.ecspring.services.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours = 24;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public IdempotencyServiceImpl(
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public OrderDto checkoutOnce(Long userId, String idempotencyKey, CheckoutRequestDto checkoutRequest,
+                                 Supplier<OrderDto> checkout) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(checkoutRequest);
+
+        // A retry costs one indexed lookup and never reaches the order, product or invoice tables
+        Optional<OrderDto> replay = findReplay(userId, idempotencyKey, requestHash);
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+
+        try {
+            // The key row is claimed before the checkout runs and commits or rolls back with the order
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                idempotencyKeyRepository.deleteExpiredKey(userId, idempotencyKey, now);
+
+                IdempotencyKeyEntity key = new IdempotencyKeyEntity();
+                key.setUserId(userId);
+                key.setIdempotencyKey(idempotencyKey);
+                key.setRequestHash(requestHash);
+                key.setCreatedAt(now);
+                key.setExpiresAt(now.plusHours(ttlHours));
+                // Flushed right away: a concurrent duplicate blocks on the unique key here, before taking any stock
+                idempotencyKeyRepository.saveAndFlush(key);
+
+                OrderDto order = checkout.get();
+                key.setResponseBody(toJson(order));
+                return order;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race to a concurrent request with the same key; answer with the order it created
+            return findReplay(userId, idempotencyKey, requestHash).orElseThrow(() -> e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpiredKeys() {
+        return idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void sweepExpiredKeys() {
+        int purged = purgeExpiredKeys();
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Optional<OrderDto> findReplay(Long userId, String idempotencyKey, String requestHash) {
+        return idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .filter(key -> key.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(key -> {
+                    if (!key.getRequestHash().equals(requestHash)) {
+                        throw new IdempotencyKeyConflictException("Idempotency-Key was already used for a different request");
+                    }
+                    return fromJson(key.getResponseBody());
+                });
+    }
+
+    private String hash(CheckoutRequestDto checkoutRequest) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(toJson(checkoutRequest).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private OrderDto fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, OrderDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored checkout response", e);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -33,37 +34,7 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     public void sendOrderNotification(NotificationDto notification) {
         try {
-            log.info("📝 Processing notification: {} for user: {}", notification.getType(), notification.getUsername());
-            
-            // Set a unique ID for the notification if not already set
-            if (notification.getId() == null || notification.getId().isEmpty()) {
-                notification.setId(UUID.randomUUID().toString());
-            }
-            
-            // Find user by username to persist notification
-            log.info("🔍 Looking up user with username: {}", notification.getUsername());
-            UserEntity user = userRepository.findByUsername(notification.getUsername());
-            if (user != null) {
-                log.info("✅ User found: {} (ID: {})", user.getUsername(), user.getId());
-                // Persist notification to database
-                notificationPersistenceService.saveNotification(notification, user);
-                log.info("💾 Notification persisted to database for user: {}", notification.getUsername());
-            } else {
-                log.warn("⚠️ User not found for username: {}, skipping persistence", notification.getUsername());
-                log.warn("⚠️ This means notifications will not be saved to database for this user!");
-            }
-            
-            // Send to specific user's topic using username
-            String destination = "/topic/notifications/user/" + notification.getUsername();
-            messagingTemplate.convertAndSend(destination, notification);
-            log.info("📡 WebSocket message sent to user topic: {}", destination);
-            
-            // Also send to admin topic for admin monitoring (only admins should subscribe to this)
-            messagingTemplate.convertAndSend("/topic/notifications/admin", notification);
-            log.info("📡 WebSocket message sent to admin topic: /topic/notifications/admin");
-            
-            log.info("✅ Notification sent successfully for order: {} to user: {}", 
-                    notification.getOrderNumber(), notification.getUsername());
+            deliverNotification(notification);
         } catch (Exception e) {
             log.error("❌ Failed to send notification for order: {} to user: {}", 
                      notification.getOrderNumber(), notification.getUsername(), e);
@@ -75,10 +46,77 @@ public class NotificationServiceImpl implements NotificationService {
         log.info("🚀 Sending order update notification - Order: {}, Status: {}, User: {} (ID: {})", 
                 orderNumber, orderStatus, username, userId);
         
+        sendOrderNotification(orderUpdateNotification(orderNumber, orderStatus, userId, username));
+    }
+
+    @Override
+    public void sendOrderCreatedNotification(String orderNumber, Long userId, String username) {
+        sendOrderNotification(orderCreatedNotification(orderNumber, userId, username));
+    }
+
+    @Override
+    public void deliverOrderNotification(String notificationId, String type, String orderNumber, String orderStatus,
+                                         Long userId, String username) {
+        NotificationDto notification = "ORDER_CREATED".equals(type)
+                ? orderCreatedNotification(orderNumber, userId, username)
+                : orderUpdateNotification(orderNumber, orderStatus, userId, username);
+        notification.setId(notificationId);
+        deliverNotification(notification);
+    }
+
+    @Override
+    public void deliverOrdersNotification(String notificationId, List<String> orderNumbers, String orderStatus,
+                                          Long userId, String username) {
+        String title = "Orders Status Updated";
+        String message = String.format("%d of your orders have been updated to: %s (%s)",
+                orderNumbers.size(), orderStatus, String.join(", ", orderNumbers));
+        // No single order number to attach; the message lists them all
+        NotificationDto notification = new NotificationDto("ORDER_UPDATE", title, message, null, orderStatus, userId, username);
+        notification.setId(notificationId);
+        deliverNotification(notification);
+    }
+
+    // Persists and broadcasts one notification, letting failures propagate. Safe to repeat with the same id:
+    // saveNotification keeps the first row, and the broadcast goes out again in case the earlier one failed
+    private void deliverNotification(NotificationDto notification) {
+        log.info("📝 Processing notification: {} for user: {}", notification.getType(), notification.getUsername());
+        
+        // Set a unique ID for the notification if not already set
+        if (notification.getId() == null || notification.getId().isEmpty()) {
+            notification.setId(UUID.randomUUID().toString());
+        }
+        
+        // Find user by username to persist notification
+        log.info("🔍 Looking up user with username: {}", notification.getUsername());
+        UserEntity user = userRepository.findByUsername(notification.getUsername());
+        if (user != null) {
+            log.info("✅ User found: {} (ID: {})", user.getUsername(), user.getId());
+            // Persist notification to database
+            notificationPersistenceService.saveNotification(notification, user);
+            log.info("💾 Notification persisted to database for user: {}", notification.getUsername());
+        } else {
+            log.warn("⚠️ User not found for username: {}, skipping persistence", notification.getUsername());
+            log.warn("⚠️ This means notifications will not be saved to database for this user!");
+        }
+        
+        // Send to specific user's topic using username
+        String destination = "/topic/notifications/user/" + notification.getUsername();
+        messagingTemplate.convertAndSend(destination, notification);
+        log.info("📡 WebSocket message sent to user topic: {}", destination);
+        
+        // Also send to admin topic for admin monitoring (only admins should subscribe to this)
+        messagingTemplate.convertAndSend("/topic/notifications/admin", notification);
+        log.info("📡 WebSocket message sent to admin topic: /topic/notifications/admin");
+        
+        log.info("✅ Notification sent successfully for order: {} to user: {}", 
+                notification.getOrderNumber(), notification.getUsername());
+    }
+
+    private NotificationDto orderUpdateNotification(String orderNumber, String orderStatus, Long userId, String username) {
         String title = "Order Status Updated";
         String message = String.format("Your order %s status has been updated to: %s", orderNumber, orderStatus);
         
-        NotificationDto notification = new NotificationDto(
+        return new NotificationDto(
             "ORDER_UPDATE",
             title,
             message,
@@ -87,16 +125,13 @@ public class NotificationServiceImpl implements NotificationService {
             userId,
             username
         );
-        
-        sendOrderNotification(notification);
     }
 
-    @Override
-    public void sendOrderCreatedNotification(String orderNumber, Long userId, String username) {
+    private NotificationDto orderCreatedNotification(String orderNumber, Long userId, String username) {
         String title = "Order Created Successfully";
         String message = String.format("Your order %s has been created and is being processed", orderNumber);
         
-        NotificationDto notification = new NotificationDto(
+        return new NotificationDto(
             "ORDER_CREATED",
             title,
             message,
@@ -105,8 +140,5 @@ public class NotificationServiceImpl implements NotificationService {
             userId,
             username
         );
-        
-        sendOrderNotification(notification);
     }
 }
-
@@ -1,7 +1,7 @@
 package com.ecspring.services.impl;
 
 import com.ecspring.dto.ChatResponseDto;
-import com.ecspring.entity.ProductEntity;
+import com.ecspring.dto.ProductDto;
 import com.ecspring.services.OllamaService;
 import com.ecspring.services.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -102,7 +102,7 @@ public class OllamaServiceImpl implements OllamaService {
     private String fetchProductContext(String message) {
         try {
             String lowerMessage = message.toLowerCase();
-            List<ProductEntity> products;
+            List<ProductDto> products;
             
             // Check for price-related queries
             if (lowerMessage.contains("under") || lowerMessage.contains("below") || 
@@ -192,11 +192,11 @@ public class OllamaServiceImpl implements OllamaService {
     /**
      * Format products data for AI context
      */
-    private String formatProductsForAI(List<ProductEntity> products) {
+    private String formatProductsForAI(List<ProductDto> products) {
         StringBuilder context = new StringBuilder();
         context.append("CURRENT INVENTORY (Real-time data from database):\n\n");
         
-        for (ProductEntity product : products) {
+        for (ProductDto product : products) {
             context.append(String.format(
                 "- %s\n" +
                 "  Price: $%.2f\n" +
@@ -0,0 +1,177 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.LineItemDto;
+import com.ecspring.dto.OrderDto;
+import com.ecspring.entity.ArchivedLineItemEntity;
+import com.ecspring.entity.ArchivedOrderEntity;
+import com.ecspring.entity.OrderStatus;
+import com.ecspring.repositories.ArchivedLineItemRepository;
+import com.ecspring.repositories.ArchivedOrderRepository;
+import com.ecspring.services.OrderArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class OrderArchiveServiceImpl implements OrderArchiveService {
+
+    // Only orders that can no longer change are archived; the rest stay where status updates expect them.
+    // Cancelled orders can still be reinstated to PENDING, so they stay too.
+    private static final List<String> ARCHIVABLE_STATUSES = List.of(OrderStatus.DELIVERED.name());
+
+    // Oldest first through idx_orders_status_date_id; the rows stay locked until the chunk commits, so a
+    // concurrent status change either finishes first or finds the order gone
+    private static final String SELECT_CHUNK_SQL =
+            "SELECT id FROM orders WHERE status IN (:statuses) AND order_date < :cutoff " +
+            "ORDER BY order_date, id LIMIT :limit FOR UPDATE";
+
+    private static final String COPY_ORDERS_SQL =
+            "INSERT INTO orders_archive (id, order_number, order_date, status, user_id, payment_method, total_amount, " +
+            "shipping_first_name, shipping_last_name, shipping_phone, shipping_address, shipping_city, " +
+            "shipping_state, shipping_zip_code, archived_at) " +
+            "SELECT id, order_number, order_date, status, user_id, payment_method, total_amount, " +
+            "shipping_first_name, shipping_last_name, shipping_phone, shipping_address, shipping_city, " +
+            "shipping_state, shipping_zip_code, :archivedAt " +
+            "FROM orders WHERE id IN (:ids)";
+
+    private static final String COPY_LINE_ITEMS_SQL =
+            "INSERT INTO line_items_archive (id, order_id, product_id, product_name, product_image_url, quantity, unit_price) " +
+            "SELECT li.id, li.order_id, li.product_id, p.name, p.image_url, li.quantity, li.unit_price " +
+            "FROM line_items li JOIN products p ON p.id = li.product_id WHERE li.order_id IN (:ids)";
+
+    private static final String COPY_INVOICES_SQL =
+            "INSERT INTO invoices_archive (id, invoice_number, date_created, order_id) " +
+            "SELECT id, invoice_number, date_created, order_id FROM invoices WHERE order_id IN (:ids)";
+
+    // Notifications outlive the order they were about
+    private static final String DETACH_NOTIFICATIONS_SQL =
+            "UPDATE notifications SET order_id = NULL WHERE order_id IN (:ids)";
+
+    private static final String DELETE_INVOICES_SQL = "DELETE FROM invoices WHERE order_id IN (:ids)";
+    private static final String DELETE_LINE_ITEMS_SQL = "DELETE FROM line_items WHERE order_id IN (:ids)";
+    private static final String DELETE_ORDERS_SQL = "DELETE FROM orders WHERE id IN (:ids)";
+
+    @Value("${app.archive.order-age-days:365}")
+    private long orderAgeDays = 365;
+
+    // Orders per transaction; keeps lock time and undo log size bounded however large the backlog is
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedLineItemRepository archivedLineItemRepository;
+
+    @Autowired
+    public OrderArchiveServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ArchivedOrderRepository archivedOrderRepository,
+            ArchivedLineItemRepository archivedLineItemRepository) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.archivedLineItemRepository = archivedLineItemRepository;
+    }
+
+    @Override
+    public int archiveOrdersPlacedBefore(LocalDateTime cutoff) {
+        int archived = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            archived += chunk;
+        } while (chunk == batchSize);
+        return archived;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<OrderDto> findArchivedOrder(String orderNumber) {
+        return archivedOrderRepository.findByOrderNumberWithUser(orderNumber)
+                .map(order -> mapToOrderDto(order, archivedLineItemRepository.findByOrderIdOrderById(order.getId())));
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 0 4 * * *}")
+    public void archiveOldOrders() {
+        int archived = archiveOrdersPlacedBefore(LocalDateTime.now().minusDays(orderAgeDays));
+        if (archived > 0) {
+            log.info("Archived {} orders older than {} days", archived, orderAgeDays);
+        }
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_CHUNK_SQL, new MapSqlParameterSource()
+                .addValue("statuses", ARCHIVABLE_STATUSES)
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", batchSize), Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        MapSqlParameterSource chunk = new MapSqlParameterSource("ids", ids)
+                .addValue("archivedAt", Timestamp.valueOf(LocalDateTime.now()));
+        // Children are copied before and deleted after their order, so the foreign keys hold throughout
+        jdbcTemplate.update(COPY_ORDERS_SQL, chunk);
+        jdbcTemplate.update(COPY_LINE_ITEMS_SQL, chunk);
+        jdbcTemplate.update(COPY_INVOICES_SQL, chunk);
+        jdbcTemplate.update(DETACH_NOTIFICATIONS_SQL, chunk);
+        jdbcTemplate.update(DELETE_INVOICES_SQL, chunk);
+        jdbcTemplate.update(DELETE_LINE_ITEMS_SQL, chunk);
+        jdbcTemplate.update(DELETE_ORDERS_SQL, chunk);
+        return ids.size();
+    }
+
+    private OrderDto mapToOrderDto(ArchivedOrderEntity order, List<ArchivedLineItemEntity> items) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setId(order.getId());
+        orderDto.setOrderNumber(order.getOrderNumber());
+        orderDto.setOrderDate(order.getOrderDate());
+        orderDto.setStatus(order.getStatus());
+        orderDto.setUserId(order.getUser().getId());
+        orderDto.setUserName(order.getUser().getName());
+        orderDto.setTotalAmount(order.getTotalAmount());
+        orderDto.setPaymentMethod(order.getPaymentMethod());
+
+        orderDto.setShippingFirstName(order.getShippingFirstName());
+        orderDto.setShippingLastName(order.getShippingLastName());
+        orderDto.setShippingPhone(order.getShippingPhone());
+        orderDto.setShippingAddress(order.getShippingAddress());
+        orderDto.setShippingCity(order.getShippingCity());
+        orderDto.setShippingState(order.getShippingState());
+        orderDto.setShippingZipCode(order.getShippingZipCode());
+
+        orderDto.setItems(items.stream()
+                .map(this::mapToLineItemDto)
+                .collect(Collectors.toList()));
+        return orderDto;
+    }
+
+    private LineItemDto mapToLineItemDto(ArchivedLineItemEntity item) {
+        LineItemDto lineItemDto = new LineItemDto();
+        lineItemDto.setId(item.getId());
+        lineItemDto.setQuantity(item.getQuantity());
+        lineItemDto.setProductId(item.getProductId());
+        lineItemDto.setProductName(item.getProductName());
+        lineItemDto.setProductPrice(item.getUnitPrice());
+        lineItemDto.setProductImageUrl(item.getProductImageUrl());
+        lineItemDto.setLineTotal(item.getUnitPrice() * item.getQuantity());
+        return lineItemDto;
+    }
+}
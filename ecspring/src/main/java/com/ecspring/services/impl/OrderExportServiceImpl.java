@@ -0,0 +1,256 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.services.OrderExportService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    // One flat row per line item, grouped by order through the ordering, so rows can be written as they arrive.
+    // Orders without line items still get a row. Archived orders keep their ids and are merged into the same
+    // (order_date, id) order; their line items carry the product name from when they were archived.
+    // Served by idx_orders_date_id and idx_orders_archive_date_id.
+    private static final String EXPORT_SQL =
+            "SELECT o.id, o.order_number, o.order_date, o.status, u.username, o.payment_method, o.total_amount, " +
+            "li.id AS line_id, li.product_id, p.name AS product_name, li.quantity, li.unit_price " +
+            "FROM orders o " +
+            "JOIN users u ON u.id = o.user_id " +
+            "LEFT JOIN line_items li ON li.order_id = o.id " +
+            "LEFT JOIN products p ON p.id = li.product_id " +
+            "WHERE o.order_date BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT ao.id, ao.order_number, ao.order_date, ao.status, u.username, ao.payment_method, ao.total_amount, " +
+            "ali.id, ali.product_id, ali.product_name, ali.quantity, ali.unit_price " +
+            "FROM orders_archive ao " +
+            "JOIN users u ON u.id = ao.user_id " +
+            "LEFT JOIN line_items_archive ali ON ali.order_id = ao.id " +
+            "WHERE ao.order_date BETWEEN ? AND ? " +
+            "ORDER BY order_date, id, line_id";
+
+    private static final String CSV_HEADER = "order_id,order_number,order_date,status,customer,payment_method," +
+            "order_total,product_id,product_name,quantity,unit_price,line_total";
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream the result set row by row instead of buffering it;
+    // other drivers need a positive value
+    @Value("${app.export.fetch-size:-2147483648}")
+    private int fetchSize = Integer.MIN_VALUE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OrderExportServiceImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long exportOrders(LocalDateTime startDate, LocalDateTime endDate, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(jsonFactory.createGenerator(writer));
+
+        try {
+            rowWriter.start();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setTimestamp(1, Timestamp.valueOf(startDate));
+                ps.setTimestamp(2, Timestamp.valueOf(endDate));
+                ps.setTimestamp(3, Timestamp.valueOf(startDate));
+                ps.setTimestamp(4, Timestamp.valueOf(endDate));
+                return ps;
+            }, rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    // Usually the client went away; abandons the query instead of reading the rest
+                    throw new UncheckedIOException(e);
+                }
+            });
+            rowWriter.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("Exported {} orders from {} to {} as {}", rowWriter.orders, startDate, endDate, format);
+        return rowWriter.orders;
+    }
+
+    // Turns the flat rows into output; sees the rows of one order consecutively
+    private abstract static class RowWriter {
+        long orders;
+        long currentOrderId = -1;
+
+        void start() throws IOException {
+        }
+
+        void write(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong("id");
+            boolean newOrder = orderId != currentOrderId;
+            if (newOrder) {
+                currentOrderId = orderId;
+                orders++;
+            }
+            writeRow(rs, newOrder);
+        }
+
+        abstract void writeRow(ResultSet rs, boolean newOrder) throws SQLException, IOException;
+
+        void finish() throws IOException {
+        }
+    }
+
+    private static class CsvRowWriter extends RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void start() throws IOException {
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        void writeRow(ResultSet rs, boolean newOrder) throws SQLException, IOException {
+            Integer quantity = rs.getObject("quantity", Integer.class);
+            Double unitPrice = rs.getObject("unit_price", Double.class);
+            writer.write(String.valueOf(rs.getLong("id")));
+            writeText(rs.getString("order_number"));
+            writeText(rs.getTimestamp("order_date").toLocalDateTime().toString());
+            writeText(rs.getString("status"));
+            writeText(rs.getString("username"));
+            writeText(rs.getString("payment_method"));
+            writeNumber(rs.getObject("total_amount", Double.class));
+            writer.write(',');
+            Long productId = rs.getObject("product_id", Long.class);
+            if (productId != null) {
+                writer.write(String.valueOf(productId));
+            }
+            writeText(rs.getString("product_name"));
+            writer.write(',');
+            if (quantity != null) {
+                writer.write(String.valueOf(quantity));
+            }
+            writeNumber(unitPrice);
+            writeNumber(quantity != null && unitPrice != null ? unitPrice * quantity : null);
+            writer.write("\r\n");
+        }
+
+        private void writeNumber(Double value) throws IOException {
+            writer.write(',');
+            if (value != null) {
+                writer.write(BigDecimal.valueOf(value).toPlainString());
+            }
+        }
+
+        // RFC 4180 quoting; text starting with a formula character is prefixed so spreadsheets do not evaluate it
+        private void writeText(String value) throws IOException {
+            writer.write(',');
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@') {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+    }
+
+    // One JSON object per order and line, items nested; the generator writes through without building a tree
+    private static class NdjsonRowWriter extends RowWriter {
+        private final JsonGenerator json;
+        private boolean orderOpen;
+
+        NdjsonRowWriter(JsonGenerator json) {
+            this.json = json;
+            // Orders are separated by newlines only, not the space Jackson puts between root values
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        void writeRow(ResultSet rs, boolean newOrder) throws SQLException, IOException {
+            if (newOrder) {
+                endOrder();
+                json.writeStartObject();
+                json.writeNumberField("orderId", rs.getLong("id"));
+                json.writeStringField("orderNumber", rs.getString("order_number"));
+                json.writeStringField("orderDate", rs.getTimestamp("order_date").toLocalDateTime().toString());
+                json.writeStringField("status", rs.getString("status"));
+                json.writeStringField("customer", rs.getString("username"));
+                json.writeStringField("paymentMethod", rs.getString("payment_method"));
+                writeNumberField("totalAmount", rs.getObject("total_amount", Double.class));
+                json.writeArrayFieldStart("items");
+                orderOpen = true;
+            }
+
+            Long productId = rs.getObject("product_id", Long.class);
+            if (productId == null) {
+                return;
+            }
+            json.writeStartObject();
+            json.writeNumberField("productId", productId);
+            json.writeStringField("productName", rs.getString("product_name"));
+            json.writeNumberField("quantity", rs.getInt("quantity"));
+            writeNumberField("unitPrice", rs.getObject("unit_price", Double.class));
+            json.writeEndObject();
+        }
+
+        @Override
+        void finish() throws IOException {
+            endOrder();
+            json.flush();
+        }
+
+        private void endOrder() throws IOException {
+            if (orderOpen) {
+                json.writeEndArray();
+                json.writeEndObject();
+                json.writeRaw('\n');
+                orderOpen = false;
+            }
+        }
+
+        private void writeNumberField(String name, Double value) throws IOException {
+            if (value != null) {
+                json.writeNumberField(name, BigDecimal.valueOf(value));
+            } else {
+                json.writeNullField(name);
+            }
+        }
+    }
+}
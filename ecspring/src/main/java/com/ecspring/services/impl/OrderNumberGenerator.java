@@ -0,0 +1,89 @@
+package com.ecspring.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Snowflake-style order numbers: "ORD-yyyyMMdd-" followed by a fixed-width base36
+ * encoding of (milliseconds since 2024-01-01 | node id | per-millisecond sequence).
+ * Numbers from one node are strictly increasing, numbers from different nodes
+ * never collide as long as each instance has its own app.order-number.node-id,
+ * which has no default so that the application does not start without one,
+ * and the lexical order follows creation time, so inserts land at the end of the
+ * unique index on order_number.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // 63 bits need at most 13 base36 digits; padding keeps lexical order equal to numeric order
+    private static final int ENCODED_LENGTH = 13;
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final int nodeId;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private long lastTimestamp = -1L;
+    private long sequence;
+
+    // The day prefix only changes at midnight, so it is formatted once per day
+    private long dayStartMillis;
+    private long dayEndMillis;
+    private String dayPrefix;
+
+    public OrderNumberGenerator(@Value("${app.order-number.node-id}") int nodeId) {
+        this.nodeId = nodeId;
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.order-number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+    }
+
+    public synchronized String next() {
+        // Never step back: if the clock moves backwards, keep counting on the last timestamp
+        long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // Sequence exhausted for this millisecond, borrow the next one instead of waiting
+                timestamp++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+
+        long id = ((timestamp - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS))
+                | ((long) nodeId << SEQUENCE_BITS)
+                | sequence;
+        return dayPrefix(timestamp) + encode(id);
+    }
+
+    private String dayPrefix(long timestamp) {
+        if (dayPrefix == null || timestamp < dayStartMillis || timestamp >= dayEndMillis) {
+            LocalDate day = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+            dayStartMillis = day.atStartOfDay(zone).toInstant().toEpochMilli();
+            dayEndMillis = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            dayPrefix = "ORD-" + day.format(DAY_FORMAT) + "-";
+        }
+        return dayPrefix;
+    }
+
+    private static String encode(long id) {
+        char[] digits = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            digits[i] = Character.toUpperCase(Character.forDigit((int) (id % 36), 36));
+            id /= 36;
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.PriceQuoteDto;
+import com.ecspring.dto.PriceQuoteLineDto;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.exception.PriceMismatchException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prices a checkout from the current product prices. Works on products that were
+ * already loaded, so pricing adds no queries to checkout and can serve cart
+ * previews without touching anything. Amounts are BigDecimal rounded to the cent,
+ * so a total is exactly the sum of its lines whatever the number of items.
+ */
+final class OrderPricing {
+
+    private static final int MONEY_SCALE = 2;
+
+    private OrderPricing() {
+    }
+
+    static PriceQuoteDto quote(List<CheckoutOrderItemDto> items, Map<Long, ProductEntity> products) {
+        List<PriceQuoteLineDto> lines = new ArrayList<>(items.size());
+        BigDecimal total = BigDecimal.ZERO.setScale(MONEY_SCALE);
+        for (CheckoutOrderItemDto item : items) {
+            ProductEntity product = products.get(item.getProductId());
+            BigDecimal unitPrice = money(product.getPrice());
+            BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(item.getQuantity()));
+            lines.add(new PriceQuoteLineDto(product.getId(), product.getName(), item.getQuantity(), unitPrice, lineTotal,
+                    product.getQuantity() >= item.getQuantity()));
+            total = total.add(lineTotal);
+        }
+        return new PriceQuoteDto(lines, total);
+    }
+
+    // The client shows the customer a price before they confirm; if any unit price or the total differs
+    // from the quote, the customer would be charged something they did not agree to, so nothing is placed
+    static void verify(List<CheckoutOrderItemDto> items, Double clientTotal, PriceQuoteDto quote) {
+        if (clientTotal == null) {
+            throw new IllegalArgumentException("Total amount is required");
+        }
+        for (int i = 0; i < items.size(); i++) {
+            Double clientPrice = items.get(i).getPrice();
+            PriceQuoteLineDto line = quote.getLines().get(i);
+            if (clientPrice != null && money(clientPrice).compareTo(line.getUnitPrice()) != 0) {
+                throw new PriceMismatchException("The price of " + line.getProductName() + " is now "
+                        + line.getUnitPrice() + ", not " + money(clientPrice), quote);
+            }
+        }
+        if (money(clientTotal).compareTo(quote.getTotalAmount()) != 0) {
+            throw new PriceMismatchException("The order total is " + quote.getTotalAmount() + ", not "
+                    + money(clientTotal), quote);
+        }
+    }
+
+    // Double.toString gives the shortest decimal that reads back as the same double, so 0.1 stays 0.1
+    static BigDecimal money(Double amount) {
+        return BigDecimal.valueOf(amount).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+}
@@ -1,40 +1,86 @@
 package com.ecspring.services.impl;
 
+import com.ecspring.cache.OrderDtoCache;
+import com.ecspring.dto.BulkStatusUpdateResultDto;
 import com.ecspring.dto.LineItemDto;
 import com.ecspring.dto.OrderDto;
+import com.ecspring.dto.OrderPageDto;
+import com.ecspring.dto.OrderStatusDto;
+import com.ecspring.dto.PriceQuoteDto;
+import com.ecspring.dto.OrderStatusResultDto;
 import com.ecspring.dto.CheckoutOrderItemDto;
 import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.StockHoldDto;
 import com.ecspring.entity.*;
+import com.ecspring.events.OrderCreatedEvent;
+import com.ecspring.events.OrderStatusChangedEvent;
+import com.ecspring.events.OrderStatusesChangedEvent;
+import com.ecspring.exception.OrderStatusConflictException;
 import com.ecspring.exception.ResourceNotFoundException;
 import com.ecspring.repositories.*;
+import com.ecspring.services.OrderArchiveService;
 import com.ecspring.services.OrderService;
-import com.ecspring.services.NotificationService;
+import com.ecspring.services.RevenueRollupService;
+import com.ecspring.services.StockReservationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.Optional;
-import java.util.UUID;
 
 @Slf4j
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    // Keeps the IN list of the batched line item query well below driver placeholder limits
+    private static final int LINE_ITEM_FETCH_CHUNK_SIZE = 1000;
+
+    // Same limit for the order ids whose totals the startup backfill recomputes
+    private static final int BACKFILL_CHUNK_SIZE = 1000;
+
+    // Matches the limit on BulkStatusUpdateRequestDto, for callers that bypass request validation
+    private static final int MAX_BULK_STATUS_UPDATE = 500;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("orderDate"), Sort.Order.desc("id"));
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final LineItemRepository lineItemRepository;
     private final ProductRepository productRepository;
     private final InvoiceRepository invoiceRepository;
-    private final NotificationService notificationService;
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RevenueRollupService revenueRollupService;
+    private final StockReservationService stockReservationService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OrderArchiveService orderArchiveService;
+    private final OrderDtoCache orderDtoCache;
 
     @Autowired
     public OrderServiceImpl(
@@ -44,14 +90,26 @@ public class OrderServiceImpl implements OrderService {
             LineItemRepository lineItemRepository,
             ProductRepository productRepository,
             InvoiceRepository invoiceRepository,
-            NotificationService notificationService) {
+            RevenueRollupRepository revenueRollupRepository,
+            ApplicationEventPublisher eventPublisher,
+            RevenueRollupService revenueRollupService,
+            StockReservationService stockReservationService,
+            OrderNumberGenerator orderNumberGenerator,
+            OrderArchiveService orderArchiveService,
+            OrderDtoCache orderDtoCache) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
         this.lineItemRepository = lineItemRepository;
         this.productRepository = productRepository;
         this.invoiceRepository = invoiceRepository;
-        this.notificationService = notificationService;
+        this.revenueRollupRepository = revenueRollupRepository;
+        this.eventPublisher = eventPublisher;
+        this.revenueRollupService = revenueRollupService;
+        this.stockReservationService = stockReservationService;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.orderArchiveService = orderArchiveService;
+        this.orderDtoCache = orderDtoCache;
     }
 
     @Override
@@ -72,20 +130,25 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalStateException("Cannot create order from an empty cart");
         }
 
-        // Check if products are in stock
+        // Load all products in one query, fail fast on stock and price the order at current product prices
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
         for (LineItemEntity item : cartItems) {
-            ProductEntity product = item.getProduct();
-            if (product.getQuantity() < item.getQuantity()) {
-                throw new IllegalStateException("Not enough stock for product: " + product.getName());
-            }
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        Map<Long, ProductEntity> products = loadCheckoutProducts(quantities);
+        checkStock(quantities, products);
+        PriceQuoteDto quote = OrderPricing.quote(cartItems.stream()
+                .map(item -> new CheckoutOrderItemDto(item.getProduct().getId(), item.getQuantity(), null))
+                .toList(), products);
+        double totalAmount = quote.getTotalAmount().doubleValue();
 
         // Create new order
         OrderEntity order = new OrderEntity();
         order.setOrderNumber(generateOrderNumber());
         order.setOrderDate(LocalDateTime.now());
-        order.setStatus("PENDING");
+        order.setStatus(OrderStatus.PENDING.name());
         order.setUser(user);
+        order.setTotalAmount(totalAmount);
         order = orderRepository.save(order);
 
         // Create invoice
@@ -96,91 +159,83 @@ public class OrderServiceImpl implements OrderService {
         invoiceRepository.save(invoice);
 
         // Transfer items from cart to order and update product stock
-        double totalAmount = 0.0;
         List<LineItemEntity> orderItems = new ArrayList<>();
 
-        for (LineItemEntity cartItem : cartItems) {
-            // Create new line item for order
+        for (int i = 0; i < cartItems.size(); i++) {
+            LineItemEntity cartItem = cartItems.get(i);
+            ProductEntity product = products.get(cartItem.getProduct().getId());
+
+            // Create new line item for order, snapshotting the price paid
             LineItemEntity orderItem = new LineItemEntity();
-            orderItem.setProduct(cartItem.getProduct());
+            orderItem.setProduct(product);
             orderItem.setQuantity(cartItem.getQuantity());
+            orderItem.setUnitPrice(quote.getLines().get(i).getUnitPrice().doubleValue());
             orderItem.setOrder(order);
-            orderItem = lineItemRepository.save(orderItem);
             orderItems.add(orderItem);
+        }
 
-            // Update product stock
-            ProductEntity product = cartItem.getProduct();
-            product.setQuantity(product.getQuantity() - cartItem.getQuantity());
-            productRepository.save(product);
+        // One batched INSERT for all items instead of a round trip per item
+        lineItemRepository.insertOrderItems(orderItems);
 
-            // Calculate item total and add to order total
-            totalAmount += product.getPrice() * cartItem.getQuantity();
-        }
+        // Take the stock last, so the product rows stay locked only until commit
+        stockReservationService.reserve(quantities);
 
         // Clear cart
-        lineItemRepository.deleteAll(cartItems);
+        lineItemRepository.deleteAllInBatch(cartItems);
 
-        // Send notification for order creation
-        try {
-            notificationService.sendOrderCreatedNotification(order.getOrderNumber(), userId, user.getUsername());
-        } catch (Exception e) {
-            log.error("Failed to send order creation notification for order: {}", order.getOrderNumber(), e);
-        }
+        revenueRollupService.recordOrderCreated(order.getOrderDate(), order.getStatus(), totalAmount);
+
+        // Notifications go out after commit, off the request thread
+        eventPublisher.publishEvent(new OrderCreatedEvent(order.getOrderNumber(), userId, user.getUsername()));
 
         // Build and return OrderDto
-        return mapToOrderDto(order, orderItems, totalAmount);
+        return mapToOrderDto(order, orderItems);
     }
 
     @Override
     public OrderDto getOrderById(Long id) {
-        OrderEntity order = orderRepository.findById(id)
+        OrderEntity order = orderRepository.findDetailedById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
 
-        List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-        double totalAmount = calculateOrderTotal(items);
-        
-        return mapToOrderDto(order, items, totalAmount);
+        return mapToOrderDto(order, order.getItems());
     }
 
     @Override
     public OrderDto getOrderByOrderNumber(String orderNumber) {
-        OrderEntity order = orderRepository.findByOrderNumber(orderNumber)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with order number: " + orderNumber));
+        // Customers poll their order page, so repeated reads within the TTL cost no query at all
+        return orderDtoCache.get(orderNumber, () -> loadOrderByOrderNumber(orderNumber));
+    }
 
-        List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-        double totalAmount = calculateOrderTotal(items);
-        
-        return mapToOrderDto(order, items, totalAmount);
+    private OrderDto loadOrderByOrderNumber(String orderNumber) {
+        Optional<OrderEntity> order = orderRepository.findDetailedByOrderNumber(orderNumber);
+        if (order.isEmpty()) {
+            // Old delivered and cancelled orders live in the archive tables
+            return orderArchiveService.findArchivedOrder(orderNumber)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order not found with order number: " + orderNumber));
+        }
+
+        return mapToOrderDto(order.get(), order.get().getItems());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDto> getAllOrders() {
-        List<OrderEntity> orders = orderRepository.findAll();
-        return orders.stream()
-                .map(order -> {
-                    List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                    double totalAmount = calculateOrderTotal(items);
-                    return mapToOrderDto(order, items, totalAmount);
-                })
-                .collect(Collectors.toList());
+        List<OrderEntity> orders = orderRepository.findAllWithUser();
+        return mapToOrderDtos(orders);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByUser(Long userId) {
         UserEntity user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
         List<OrderEntity> orders = orderRepository.findByUserOrderByOrderDateDesc(user);
-        return orders.stream()
-                .map(order -> {
-                    List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                    double totalAmount = calculateOrderTotal(items);
-                    return mapToOrderDto(order, items, totalAmount);
-                })
-                .collect(Collectors.toList());
+        return mapToOrderDtos(orders);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByUsername(String username) {
         UserEntity user = userRepository.findByUsername(username);
         if (user == null) {
@@ -188,31 +243,21 @@ public class OrderServiceImpl implements OrderService {
         }
         
         List<OrderEntity> orders = orderRepository.findByUserOrderByOrderDateDesc(user);
-        return orders.stream()
-                .map(order -> {
-                    List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                    double totalAmount = calculateOrderTotal(items);
-                    return mapToOrderDto(order, items, totalAmount);
-                })
-                .collect(Collectors.toList());
+        return mapToOrderDtos(orders);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByUserAndStatus(Long userId, String status) {
         UserEntity user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
         List<OrderEntity> orders = orderRepository.findByUserAndStatusOrderByOrderDateDesc(user, status);
-        return orders.stream()
-                .map(order -> {
-                    List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                    double totalAmount = calculateOrderTotal(items);
-                    return mapToOrderDto(order, items, totalAmount);
-                })
-                .collect(Collectors.toList());
+        return mapToOrderDtos(orders);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByUsernameAndStatus(String username, String status) {
         UserEntity user = userRepository.findByUsername(username);
         if (user == null) {
@@ -220,62 +265,221 @@ public class OrderServiceImpl implements OrderService {
         }
         
         List<OrderEntity> orders = orderRepository.findByUserAndStatusOrderByOrderDateDesc(user, status);
-        return orders.stream()
-                .map(order -> {
-                    List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                    double totalAmount = calculateOrderTotal(items);
-                    return mapToOrderDto(order, items, totalAmount);
-                })
-                .collect(Collectors.toList());
+        return mapToOrderDtos(orders);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByStatus(String status) {
         List<OrderEntity> orders = orderRepository.findByStatus(status);
-        return orders.stream()
-                .map(order -> {
-                    List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                    double totalAmount = calculateOrderTotal(items);
-                    return mapToOrderDto(order, items, totalAmount);
-                })
-                .collect(Collectors.toList());
+        return mapToOrderDtos(orders);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         List<OrderEntity> orders = orderRepository.findByOrderDateBetween(startDate, endDate);
-        return orders.stream()
-                .map(order -> {
-                    List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                    double totalAmount = calculateOrderTotal(items);
-                    return mapToOrderDto(order, items, totalAmount);
-                })
-                .collect(Collectors.toList());
+        return mapToOrderDtos(orders);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageDto getOrdersPage(String status, LocalDateTime startDate, LocalDateTime endDate,
+                                      String cursor, int size) {
+        return findOrdersPage(null, status, startDate, endDate, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageDto getOrdersPageByUsername(String username, String status, LocalDateTime startDate,
+                                                LocalDateTime endDate, String cursor, int size) {
+        UserEntity user = userRepository.findByUsername(username);
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found with username: " + username);
+        }
+
+        return findOrdersPage(user.getId(), status, startDate, endDate, cursor, size);
     }
 
     @Override
     @Transactional
-    public OrderDto updateOrderStatus(Long id, String status) {
-        OrderEntity order = orderRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
+    public OrderStatusDto updateOrderStatus(Long id, String status) {
+        OrderRepository.OrderStatusView order = findStatusView(id);
+        return applyTransition(order, order.getStatus(), status);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderStatusDto getOrderStatus(Long id) {
+        return mapToOrderStatusDto(findStatusView(id), null);
+    }
+
+    @Override
+    @Transactional
+    public OrderStatusDto transitionOrderStatus(Long id, String expectedStatus, String status) {
+        return applyTransition(findStatusView(id), expectedStatus, status);
+    }
+
+    private OrderStatusDto applyTransition(OrderRepository.OrderStatusView order, String expectedStatus, String status) {
+        OrderStatus next = OrderStatus.parse(status);
+        OrderStatus current = OrderStatus.parse(expectedStatus);
+        if (!current.canTransitionTo(next)) {
+            throw new OrderStatusConflictException("Cannot change order status from " + current + " to " + next);
+        }
+
+        // One conditional UPDATE: a concurrent change of the same order makes it miss instead of being overwritten
+        if (orderRepository.compareAndSetStatus(order.getId(), current.name(), next.name()) == 0) {
+            throw new OrderStatusConflictException("Order " + order.getOrderNumber() + " is no longer " + current
+                    + ", it is now " + findStatusView(order.getId()).getStatus());
+        }
+
+        // A cancelled order gives its stock back, and takes it again if it is reinstated
+        if (next == OrderStatus.CANCELLED || current == OrderStatus.CANCELLED) {
+            SortedMap<Long, Integer> quantities = new TreeMap<>();
+            lineItemRepository.findProductQuantitiesByOrderId(order.getId())
+                    .forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+            if (next == OrderStatus.CANCELLED) {
+                stockReservationService.release(quantities);
+            } else {
+                reserveForReinstatement(quantities);
+            }
+        }
+
+        revenueRollupService.recordStatusChange(order.getOrderDate(), current.name(), next.name(), order.getTotalAmount());
+        orderDtoCache.invalidate(order.getOrderNumber());
         
-        order.setStatus(status);
-        order = orderRepository.save(order);
+        // Notifications go out after commit, off the request thread
+        log.info("🔄 Order status updated - Order: {}, Status: {}, User: {} (ID: {})", 
+                order.getOrderNumber(), next, order.getUsername(), order.getUserId());
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getOrderNumber(), current.name(), next.name(),
+                order.getUserId(), order.getUsername()));
         
-        // Send notification for order status update
+        return mapToOrderStatusDto(order, next);
+    }
+
+    @Override
+    @Transactional
+    public BulkStatusUpdateResultDto bulkUpdateOrderStatus(List<Long> orderIds, String expectedStatus, String status) {
+        OrderStatus next = OrderStatus.parse(status);
+        OrderStatus expected = expectedStatus != null ? OrderStatus.parse(expectedStatus) : null;
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        if (ids.size() > MAX_BULK_STATUS_UPDATE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_STATUS_UPDATE + " orders can be updated at once");
+        }
+        if (ids.isEmpty()) {
+            return new BulkStatusUpdateResultDto(next.name(), 0, 0, new ArrayList<>());
+        }
+
+        // One narrow query for all orders, then one batch of conditional UPDATEs in ascending id order,
+        // so two bulk updates over overlapping orders wait on each other instead of deadlocking
+        Map<Long, OrderRepository.OrderStatusView> orders = new HashMap<>();
+        orderRepository.findStatusViewsByIdIn(ids).forEach(order -> orders.put(order.getId(), order));
+
+        Map<Long, OrderStatusResultDto> results = new LinkedHashMap<>();
+        List<OrderRepository.OrderStatusView> candidates = new ArrayList<>();
+        for (Long id : ids) {
+            OrderRepository.OrderStatusView order = orders.get(id);
+            if (order == null) {
+                results.put(id, new OrderStatusResultDto(id, null, null, false, "Order not found"));
+                continue;
+            }
+            OrderStatus current;
+            try {
+                current = OrderStatus.parse(order.getStatus());
+            } catch (IllegalArgumentException e) {
+                // Legacy status from before the lifecycle was enforced; it has no allowed transitions
+                results.put(id, new OrderStatusResultDto(id, order.getOrderNumber(), order.getStatus(), false,
+                        "Order has unknown status " + order.getStatus()));
+                continue;
+            }
+            String error = null;
+            if (expected != null && current != expected) {
+                error = "Order is " + current + ", not " + expected;
+            } else if (!current.canTransitionTo(next)) {
+                error = "Cannot change order status from " + current + " to " + next;
+            }
+            results.put(id, new OrderStatusResultDto(id, order.getOrderNumber(), current.name(), error == null, error));
+            if (error == null) {
+                candidates.add(order);
+            }
+        }
+        candidates.sort(Comparator.comparing(OrderRepository.OrderStatusView::getId));
+
+        int[] updateCounts = orderRepository.compareAndSetStatuses(candidates.stream()
+                .map(order -> new OrderStatusBatchRepository.StatusTransition(order.getId(), order.getStatus(), next.name()))
+                .toList());
+        List<OrderRepository.OrderStatusView> applied = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            OrderRepository.OrderStatusView order = candidates.get(i);
+            if (updateCounts[i] == 0) {
+                OrderStatusResultDto result = results.get(order.getId());
+                result.setSuccess(false);
+                result.setError("Order was changed by someone else, reload and try again");
+            } else {
+                applied.add(order);
+            }
+        }
+
+        // Stock moves for all cancelled or reinstated orders at once. Reinstating can run out of stock,
+        // which fails the whole call as a conflict, since the stock cannot be split between the orders sensibly.
+        if (next == OrderStatus.CANCELLED) {
+            stockReservationService.release(productQuantities(applied));
+        } else {
+            List<OrderRepository.OrderStatusView> reinstated = applied.stream()
+                    .filter(order -> OrderStatus.CANCELLED.name().equals(order.getStatus()))
+                    .toList();
+            if (!reinstated.isEmpty()) {
+                reserveForReinstatement(productQuantities(reinstated));
+            }
+        }
+
+        revenueRollupService.recordStatusChanges(applied.stream()
+                .map(order -> new RevenueRollupService.StatusChange(order.getOrderDate(), order.getStatus(),
+                        next.name(), order.getTotalAmount()))
+                .toList());
+        orderDtoCache.invalidateAll(applied.stream().map(OrderRepository.OrderStatusView::getOrderNumber).toList());
+
+        // One notification per user, however many of their orders moved
+        Map<Long, List<OrderRepository.OrderStatusView>> byUser = applied.stream()
+                .collect(Collectors.groupingBy(OrderRepository.OrderStatusView::getUserId, LinkedHashMap::new, Collectors.toList()));
+        byUser.values().forEach(userOrders -> {
+            OrderRepository.OrderStatusView first = userOrders.get(0);
+            if (userOrders.size() == 1) {
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(first.getOrderNumber(), first.getStatus(),
+                        next.name(), first.getUserId(), first.getUsername()));
+            } else {
+                eventPublisher.publishEvent(new OrderStatusesChangedEvent(
+                        userOrders.stream().map(OrderRepository.OrderStatusView::getOrderNumber).toList(),
+                        next.name(), first.getUserId(), first.getUsername()));
+            }
+        });
+
+        log.info("🔄 Bulk status update to {} - {} of {} orders updated", next, applied.size(), ids.size());
+        return new BulkStatusUpdateResultDto(next.name(), applied.size(), ids.size() - applied.size(),
+                new ArrayList<>(results.values()));
+    }
+
+    private SortedMap<Long, Integer> productQuantities(List<OrderRepository.OrderStatusView> orders) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        if (!orders.isEmpty()) {
+            lineItemRepository.findProductQuantitiesByOrderIdIn(orders.stream().map(OrderRepository.OrderStatusView::getId).toList())
+                    .forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+        }
+        return quantities;
+    }
+
+    // Running out of stock is a conflict with the current stock levels rather than a server error
+    private void reserveForReinstatement(SortedMap<Long, Integer> quantities) {
         try {
-            log.info("🔄 Order status updated - Order: {}, Status: {}, User: {} (ID: {})", 
-                    order.getOrderNumber(), status, order.getUser().getUsername(), order.getUser().getId());
-            notificationService.sendOrderUpdateNotification(order.getOrderNumber(), status, order.getUser().getId(), order.getUser().getUsername());
-            log.info("📤 Notification service called for order: {}", order.getOrderNumber());
-        } catch (Exception e) {
-            log.error("❌ Failed to send order update notification for order: {}", order.getOrderNumber(), e);
+            stockReservationService.reserve(quantities);
+        } catch (IllegalStateException e) {
+            throw new OrderStatusConflictException("Cannot reinstate: " + e.getMessage());
         }
-        
-        List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-        double totalAmount = calculateOrderTotal(items);
-        
-        return mapToOrderDto(order, items, totalAmount);
+    }
+
+    private OrderRepository.OrderStatusView findStatusView(Long id) {
+        return orderRepository.findStatusViewById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
     }
 
     @Override
@@ -290,21 +494,18 @@ public class OrderServiceImpl implements OrderService {
         
         // Then delete order items
         List<LineItemEntity> items = lineItemRepository.findByOrder(order);
+        revenueRollupService.recordOrderDeleted(order.getOrderDate(), order.getStatus(), order.getTotalAmount());
         lineItemRepository.deleteAll(items);
         
         // Finally delete the order
         orderRepository.delete(order);
+        orderDtoCache.invalidate(order.getOrderNumber());
     }
 
     @Override
     public String generateOrderNumber() {
-        // Generate a unique order number based on timestamp and random UUID
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-        String dateStr = now.format(formatter);
-        String randomStr = UUID.randomUUID().toString().substring(0, 4);
-        
-        return "ORD-" + dateStr + "-" + randomStr;
+        // Time-ordered and unique across instances, see OrderNumberGenerator
+        return orderNumberGenerator.next();
     }
 
     @Override
@@ -313,14 +514,29 @@ public class OrderServiceImpl implements OrderService {
         // Find the user
         UserEntity user = userRepository.findByUsername(username);
         
-        // Create new order
+        // Resolve all products in one query, check stock and price the order at current product prices
+        SortedMap<Long, Integer> quantities = checkoutQuantities(checkoutRequest.getOrderItems());
+        Map<Long, ProductEntity> products = loadCheckoutProducts(quantities);
+
+        // The order is charged at the server's prices; a client that showed different ones is turned away
+        PriceQuoteDto quote = OrderPricing.quote(checkoutRequest.getOrderItems(), products);
+        OrderPricing.verify(checkoutRequest.getOrderItems(), checkoutRequest.getTotalAmount(), quote);
+        double totalAmount = quote.getTotalAmount().doubleValue();
+
+        boolean held = checkoutRequest.getHoldId() != null;
+        if (!held) {
+            // Held stock is already taken from the product, so the snapshot would undercount it
+            checkStock(quantities, products);
+        }
+        
+        // Create new order; the total is computed here, never taken from the client
         OrderEntity order = new OrderEntity();
         order.setOrderNumber(generateOrderNumber());
         order.setOrderDate(LocalDateTime.now());
-        order.setStatus("PENDING");
+        order.setStatus(OrderStatus.PENDING.name());
         order.setUser(user);
         order.setPaymentMethod(checkoutRequest.getPaymentMethod());
-        order.setTotalAmount(checkoutRequest.getTotalAmount());
+        order.setTotalAmount(totalAmount);
         
         // Set shipping information including name
         order.setShippingFirstName(checkoutRequest.getCustomerInfo().getFirstName());
@@ -343,54 +559,183 @@ public class OrderServiceImpl implements OrderService {
         List<LineItemEntity> orderItems = new ArrayList<>();
         
         // Process order items
-        double totalAmount = 0.0;
-        for (CheckoutOrderItemDto itemDto : checkoutRequest.getOrderItems()) {
-            ProductEntity product = productRepository.findById(itemDto.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + itemDto.getProductId()));
-            
-            // Check if product is in stock
-            if (product.getQuantity() < itemDto.getQuantity()) {
-                throw new IllegalStateException("Not enough stock for product: " + product.getName());
-            }
+        for (int i = 0; i < checkoutRequest.getOrderItems().size(); i++) {
+            CheckoutOrderItemDto itemDto = checkoutRequest.getOrderItems().get(i);
+            ProductEntity product = products.get(itemDto.getProductId());
             
-            // Create line item
+            // Create line item, snapshotting the price paid
             LineItemEntity orderItem = new LineItemEntity();
             orderItem.setProduct(product);
             orderItem.setQuantity(itemDto.getQuantity());
+            orderItem.setUnitPrice(quote.getLines().get(i).getUnitPrice().doubleValue());
             orderItem.setOrder(order);
-            orderItem = lineItemRepository.save(orderItem);
             orderItems.add(orderItem);
-            
-            // Update product stock
-            product.setQuantity(product.getQuantity() - itemDto.getQuantity());
-            productRepository.save(product);
-            
-            // Calculate item total
-            totalAmount += product.getPrice() * itemDto.getQuantity();
         }
+
+        // One batched INSERT for all items instead of a round trip per item
+        lineItemRepository.insertOrderItems(orderItems);
         
+        // Take the stock last, so the product rows stay locked only until commit
+        if (held) {
+            stockReservationService.confirmHold(checkoutRequest.getHoldId(), user.getId(), quantities);
+        } else {
+            stockReservationService.reserve(quantities);
+        }
+        
+        revenueRollupService.recordOrderCreated(order.getOrderDate(), order.getStatus(), totalAmount);
+
         // If not a direct purchase, clear cart
         if (!checkoutRequest.getDirectPurchase()) {
             CartEntity cart = cartRepository.findByUser(user).orElse(null);
             if (cart != null) {
                 List<LineItemEntity> cartItems = lineItemRepository.findByCart(cart);
-                lineItemRepository.deleteAll(cartItems);
+                lineItemRepository.deleteAllInBatch(cartItems);
             }
         }
         
-        // Send notification for order creation
-        try {
-            notificationService.sendOrderCreatedNotification(order.getOrderNumber(), user.getId(), user.getUsername());
-        } catch (Exception e) {
-            log.error("Failed to send order creation notification for order: {}", order.getOrderNumber(), e);
+        // Notifications go out after commit, off the request thread
+        eventPublisher.publishEvent(new OrderCreatedEvent(order.getOrderNumber(), user.getId(), user.getUsername()));
+
+        return mapToOrderDto(order, orderItems);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PriceQuoteDto quoteOrder(List<CheckoutOrderItemDto> orderItems) {
+        // Same products query and pricing as checkout, without writing anything
+        return OrderPricing.quote(orderItems, loadCheckoutProducts(checkoutQuantities(orderItems)));
+    }
+
+    @Override
+    @Transactional
+    public StockHoldDto holdStock(String username, List<CheckoutOrderItemDto> orderItems) {
+        UserEntity user = userRepository.findByUsername(username);
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found with username: " + username);
         }
 
-        // Return order DTO with the correct number of arguments
-        return mapToOrderDto(order, orderItems, totalAmount);
+        SortedMap<Long, Integer> quantities = checkoutQuantities(orderItems);
+        checkStock(quantities, loadCheckoutProducts(quantities));
+        return stockReservationService.createHold(user.getId(), quantities);
     }
 
     // Helper methods
-    private OrderDto mapToOrderDto(OrderEntity order, List<LineItemEntity> items, double totalAmount) {
+
+    // Merges duplicate lines per product, sorted by product id
+    private SortedMap<Long, Integer> checkoutQuantities(List<CheckoutOrderItemDto> orderItems) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (CheckoutOrderItemDto itemDto : orderItems) {
+            if (itemDto.getQuantity() == null || itemDto.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for product: " + itemDto.getProductId());
+            }
+            quantities.merge(itemDto.getProductId(), itemDto.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // Loads every product of a checkout in one query, in id order
+    private Map<Long, ProductEntity> loadCheckoutProducts(SortedMap<Long, Integer> quantities) {
+        Map<Long, ProductEntity> products = new LinkedHashMap<>();
+        for (ProductEntity product : productRepository.findByIdInOrderByIdAsc(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+        for (Long productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+        }
+        return products;
+    }
+
+    // Fails fast on the loaded snapshot; the conditional decrement is what prevents overselling
+    private void checkStock(SortedMap<Long, Integer> quantities, Map<Long, ProductEntity> products) {
+        quantities.forEach((productId, quantity) -> {
+            ProductEntity product = products.get(productId);
+            if (product.getQuantity() < quantity) {
+                throw new IllegalStateException("Not enough stock for product: " + product.getName());
+            }
+        });
+    }
+
+    // Seek past the cursor on (orderDate, id) so each page costs the same regardless of its position
+    private OrderPageDto findOrdersPage(Long userId, String status, LocalDateTime startDate,
+                                        LocalDateTime endDate, String cursor, int size) {
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+
+        Specification<OrderEntity> spec = Specification.where(null);
+
+        if (userId != null) {
+            spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("user").get("id"), userId));
+        }
+
+        if (status != null && !status.isEmpty()) {
+            spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("status"), status));
+        }
+
+        if (startDate != null) {
+            spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("orderDate"), startDate));
+        }
+
+        if (endDate != null) {
+            spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("orderDate"), endDate));
+        }
+
+        if (cursor != null && !cursor.isEmpty()) {
+            OrderCursor position = OrderCursor.decode(cursor);
+            spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.or(
+                    criteriaBuilder.lessThan(root.get("orderDate"), position.orderDate()),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(root.get("orderDate"), position.orderDate()),
+                            criteriaBuilder.lessThan(root.get("id"), position.id()))));
+        }
+
+        // Read one row past the page to learn whether another page exists without a count query
+        List<OrderEntity> orders = orderRepository.findBy(spec, query -> query
+                .project("user") // fetch graph: load the owning user in the same statement
+                .sortBy(NEWEST_FIRST)
+                .limit(pageSize + 1)
+                .all());
+
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            OrderEntity last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+
+        return new OrderPageDto(mapToOrderDtos(orders), pageSize, hasMore, nextCursor);
+    }
+
+
+    // Assemble DTOs for a list of orders with one line item query per chunk instead of one per order
+    private List<OrderDto> mapToOrderDtos(List<OrderEntity> orders) {
+        Map<Long, List<LineItemEntity>> itemsByOrderId = new HashMap<>();
+        for (int from = 0; from < orders.size(); from += LINE_ITEM_FETCH_CHUNK_SIZE) {
+            List<OrderEntity> chunk = orders.subList(from, Math.min(from + LINE_ITEM_FETCH_CHUNK_SIZE, orders.size()));
+            for (LineItemEntity item : lineItemRepository.findByOrderInWithProduct(chunk)) {
+                itemsByOrderId.computeIfAbsent(item.getOrder().getId(), k -> new ArrayList<>()).add(item);
+            }
+        }
+
+        return orders.stream()
+                .map(order -> {
+                    List<LineItemEntity> items = itemsByOrderId.getOrDefault(order.getId(), List.of());
+                    return mapToOrderDto(order, items);
+                })
+                .collect(Collectors.toList());
+    }
+
+    // The view is read before a transition, so the status it carries may be stale; pass the new one if known
+    private OrderStatusDto mapToOrderStatusDto(OrderRepository.OrderStatusView order, OrderStatus status) {
+        return new OrderStatusDto(order.getId(), order.getOrderNumber(),
+                status != null ? status.name() : order.getStatus(), order.getUserId(), order.getUsername());
+    }
+
+    private OrderDto mapToOrderDto(OrderEntity order, List<LineItemEntity> items) {
         OrderDto orderDto = new OrderDto();
         orderDto.setId(order.getId());
         orderDto.setOrderNumber(order.getOrderNumber());
@@ -398,7 +743,7 @@ public class OrderServiceImpl implements OrderService {
         orderDto.setStatus(order.getStatus());
         orderDto.setUserId(order.getUser().getId());
         orderDto.setUserName(order.getUser().getName());
-        orderDto.setTotalAmount(totalAmount);
+        orderDto.setTotalAmount(order.getTotalAmount());
         orderDto.setPaymentMethod(order.getPaymentMethod());
         
         // Map shipping information
@@ -425,144 +770,168 @@ public class OrderServiceImpl implements OrderService {
         lineItemDto.setQuantity(item.getQuantity());
         lineItemDto.setProductId(item.getProduct().getId());
         lineItemDto.setProductName(item.getProduct().getName());
-        lineItemDto.setProductPrice(item.getProduct().getPrice());
+        lineItemDto.setProductPrice(item.getUnitPrice());
         lineItemDto.setProductImageUrl(item.getProduct().getImageUrl());
-        lineItemDto.setLineTotal(item.getProduct().getPrice() * item.getQuantity());
+        lineItemDto.setLineTotal(item.getUnitPrice() * item.getQuantity());
         
         return lineItemDto;
     }
-    
-    private double calculateOrderTotal(List<LineItemEntity> items) {
-        return items.stream()
-                .mapToDouble(item -> item.getProduct().getPrice() * item.getQuantity())
-                .sum();
+
+    // Orders placed before prices were snapshotted get their line prices and totals filled in once
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void backfillOrderPrices() {
+        // Those orders still carry the total the client sent, so it is recomputed from the new line prices
+        List<Long> repricedOrderIds = lineItemRepository.findOrderIdsWithoutUnitPrices();
+        int lineItems = lineItemRepository.backfillUnitPrices();
+        int orders = 0;
+        for (int from = 0; from < repricedOrderIds.size(); from += BACKFILL_CHUNK_SIZE) {
+            orders += orderRepository.recomputeTotalAmounts(
+                    repricedOrderIds.subList(from, Math.min(from + BACKFILL_CHUNK_SIZE, repricedOrderIds.size())));
+        }
+        orders += orderRepository.backfillTotalAmounts();
+        if (lineItems > 0 || orders > 0) {
+            log.info("Backfilled unit prices on {} line items and totals on {} orders", lineItems, orders);
+            // The totals changed underneath the revenue rollups
+            revenueRollupService.rebuildRollups();
+        }
     }
 
-    // Analytics methods implementation
+    // Analytics methods implementation, served from the revenue rollups rather than the orders table
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getRevenueAnalytics() {
-        List<OrderEntity> allOrders = orderRepository.findAll();
-        
-        // Only count DELIVERED orders as actual revenue
-        List<OrderEntity> deliveredOrders = allOrders.stream()
-                .filter(order -> "DELIVERED".equals(order.getStatus()))
-                .collect(Collectors.toList());
-        
-        double totalRevenue = deliveredOrders.stream()
-                .mapToDouble(order -> {
-                    List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                    return calculateOrderTotal(items);
-                })
-                .sum();
-        
-        double averageOrderValue = deliveredOrders.isEmpty() ? 0 : totalRevenue / deliveredOrders.size();
-        
-        // Calculate revenue by status (all orders for status breakdown)
-        Map<String, Double> revenueByStatus = allOrders.stream()
-                .collect(Collectors.groupingBy(
-                        OrderEntity::getStatus,
-                        Collectors.summingDouble(order -> {
-                            List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                            return calculateOrderTotal(items);
-                        })
-                ));
-        
+        Map<String, Double> revenueByStatus = new HashMap<>();
+        long totalOrders = 0;
+        long deliveredOrders = 0;
+        double totalRevenue = 0.0;
+        for (RevenueRollupRepository.StatusSummary summary : revenueRollupRepository.summarizeByStatus()) {
+            if (summary.getOrderCount() == 0) {
+                continue;
+            }
+            revenueByStatus.put(summary.getStatus(), summary.getRevenue());
+            totalOrders += summary.getOrderCount();
+
+            // Only count DELIVERED orders as actual revenue
+            if ("DELIVERED".equals(summary.getStatus())) {
+                deliveredOrders = summary.getOrderCount();
+                totalRevenue = summary.getRevenue();
+            }
+        }
+
+        double averageOrderValue = deliveredOrders == 0 ? 0 : totalRevenue / deliveredOrders;
+
         Map<String, Object> analytics = new HashMap<>();
         analytics.put("totalRevenue", totalRevenue);
         analytics.put("averageOrderValue", averageOrderValue);
-        analytics.put("totalOrders", allOrders.size());
-        analytics.put("deliveredOrders", deliveredOrders.size());
+        analytics.put("totalOrders", totalOrders);
+        analytics.put("deliveredOrders", deliveredOrders);
         analytics.put("revenueByStatus", revenueByStatus);
-        
+
         return analytics;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getDailyRevenue(int days) {
-        LocalDateTime endDate = LocalDateTime.now();
-        LocalDateTime startDate = endDate.minusDays(days);
-        
-        List<OrderEntity> orders = orderRepository.findByOrderDateBetween(startDate, endDate);
-        
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(days - 1L);
+
         // Only count DELIVERED orders as actual revenue
-        Map<LocalDateTime, Double> dailyRevenueMap = orders.stream()
-                .filter(order -> "DELIVERED".equals(order.getStatus()))
-                .collect(Collectors.groupingBy(
-                        order -> order.getOrderDate().toLocalDate().atStartOfDay(),
-                        Collectors.summingDouble(order -> {
-                            List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                            return calculateOrderTotal(items);
-                        })
-                ));
-        
+        Map<LocalDate, Double> dailyRevenueMap = new HashMap<>();
+        for (RevenueRollupEntity cell : revenueRollupRepository.findByStatusAndRollupDateBetween("DELIVERED", startDate, endDate)) {
+            dailyRevenueMap.put(cell.getRollupDate(), cell.getRevenue());
+        }
+
         List<Map<String, Object>> dailyRevenue = new ArrayList<>();
         for (int i = days - 1; i >= 0; i--) {
-            LocalDateTime date = endDate.minusDays(i).toLocalDate().atStartOfDay();
+            LocalDate date = endDate.minusDays(i);
             double revenue = dailyRevenueMap.getOrDefault(date, 0.0);
-            
+
             Map<String, Object> dayData = new HashMap<>();
-            dayData.put("date", date.toLocalDate().toString());
+            dayData.put("date", date.toString());
             dayData.put("revenue", revenue);
             dailyRevenue.add(dayData);
         }
-        
+
         return dailyRevenue;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getMonthlyRevenue(int months) {
-        LocalDateTime endDate = LocalDateTime.now();
-        LocalDateTime startDate = endDate.minusMonths(months);
-        
-        List<OrderEntity> orders = orderRepository.findByOrderDateBetween(startDate, endDate);
-        
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusMonths(months - 1L).withDayOfMonth(1);
+
         // Only count DELIVERED orders as actual revenue
-        Map<String, Double> monthlyRevenueMap = orders.stream()
-                .filter(order -> "DELIVERED".equals(order.getStatus()))
-                .collect(Collectors.groupingBy(
-                        order -> order.getOrderDate().getYear() + "-" + 
-                                String.format("%02d", order.getOrderDate().getMonthValue()),
-                        Collectors.summingDouble(order -> {
-                            List<LineItemEntity> items = lineItemRepository.findByOrder(order);
-                            return calculateOrderTotal(items);
-                        })
-                ));
-        
+        Map<String, Double> monthlyRevenueMap = new HashMap<>();
+        for (RevenueRollupEntity cell : revenueRollupRepository.findByStatusAndRollupDateBetween("DELIVERED", startDate, endDate)) {
+            String monthKey = formatMonthKey(cell.getRollupDate().getYear(), cell.getRollupDate().getMonthValue());
+            monthlyRevenueMap.merge(monthKey, cell.getRevenue(), Double::sum);
+        }
+
         List<Map<String, Object>> monthlyRevenue = new ArrayList<>();
         for (int i = months - 1; i >= 0; i--) {
-            LocalDateTime date = endDate.minusMonths(i);
-            String monthKey = date.getYear() + "-" + String.format("%02d", date.getMonthValue());
+            LocalDate date = endDate.minusMonths(i);
+            String monthKey = formatMonthKey(date.getYear(), date.getMonthValue());
             double revenue = monthlyRevenueMap.getOrDefault(monthKey, 0.0);
-            
+
             Map<String, Object> monthData = new HashMap<>();
             monthData.put("month", monthKey);
             monthData.put("revenue", revenue);
             monthlyRevenue.add(monthData);
         }
-        
+
         return monthlyRevenue;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getOrderStats() {
-        List<OrderEntity> allOrders = orderRepository.findAll();
-        
-        Map<String, Long> orderCountByStatus = allOrders.stream()
-                .collect(Collectors.groupingBy(
-                        OrderEntity::getStatus,
-                        Collectors.counting()
-                ));
-        
+        Map<String, Long> orderCountByStatus = new HashMap<>();
+        long totalOrders = 0;
+        for (RevenueRollupRepository.StatusSummary row : revenueRollupRepository.summarizeByStatus()) {
+            if (row.getOrderCount() > 0) {
+                orderCountByStatus.put(row.getStatus(), row.getOrderCount());
+            }
+            totalOrders += row.getOrderCount();
+        }
+
         // Calculate conversion rate (assuming we track this)
-        long totalOrders = allOrders.size();
         long completedOrders = orderCountByStatus.getOrDefault("DELIVERED", 0L);
         double conversionRate = totalOrders > 0 ? (double) completedOrders / totalOrders * 100 : 0;
-        
+
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalOrders", totalOrders);
         stats.put("orderCountByStatus", orderCountByStatus);
         stats.put("conversionRate", conversionRate);
-        
+
         return stats;
     }
+
+    private String formatMonthKey(int year, int month) {
+        return year + "-" + (month < 10 ? "0" + month : String.valueOf(month));
+    }
+
+    // Position of the last order of a page, encoded as an opaque URL-safe token
+    private record OrderCursor(LocalDateTime orderDate, Long id) {
+
+        String encode() {
+            String raw = orderDate + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static OrderCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new OrderCursor(
+                        LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.cache.ProductCatalogCache;
+import com.ecspring.repositories.FeedbackRepository;
+import com.ecspring.repositories.ProductRepository;
+import com.ecspring.services.ProductRatingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+public class ProductRatingServiceImpl implements ProductRatingService {
+
+    private final ProductRepository productRepository;
+    private final FeedbackRepository feedbackRepository;
+    private final ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    public ProductRatingServiceImpl(ProductRepository productRepository, FeedbackRepository feedbackRepository,
+                                    ProductCatalogCache productCatalogCache) {
+        this.productRepository = productRepository;
+        this.feedbackRepository = feedbackRepository;
+        this.productCatalogCache = productCatalogCache;
+    }
+
+    @Override
+    @Transactional
+    public void recordRating(Long productId, int star) {
+        productRepository.addRating(productId, 1, star);
+        productCatalogCache.applyRating(productId, 1, star);
+    }
+
+    @Override
+    @Transactional
+    public int rebuildRatings() {
+        int corrected = productRepository.rebuildRatings();
+        if (corrected > 0) {
+            productCatalogCache.invalidate();
+        }
+        return corrected;
+    }
+
+    // Nightly safety net against drift, e.g. from feedbacks removed together with their user
+    @Scheduled(cron = "${app.ratings.reconcile-cron:0 45 3 * * *}")
+    @Transactional
+    public void reconcileRatings() {
+        int corrected = rebuildRatings();
+        if (corrected > 0) {
+            log.warn("Rating reconciliation corrected {} products", corrected);
+        } else {
+            log.info("Product ratings are consistent with feedbacks");
+        }
+    }
+
+    // Seed the totals once for databases that already hold feedbacks
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeRatings() {
+        if (productRepository.sumRatingCounts() == 0 && feedbackRepository.count() > 0) {
+            log.info("Product ratings are empty, building them from existing feedbacks");
+            rebuildRatings();
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.ecspring.services.impl;
 
+import com.ecspring.cache.ProductCatalogCache;
+import com.ecspring.cache.ProductSnapshot;
+import com.ecspring.dto.ProductDto;
 import com.ecspring.entity.ProductEntity;
 import com.ecspring.exception.ResourceNotFoundException;
 import com.ecspring.repositories.ProductRepository;
+import com.ecspring.search.ProductSearchIndex;
+import com.ecspring.search.ProductSuggester;
 import com.ecspring.services.ProductService;
 import com.ecspring.services.StorageService;
 import com.ecspring.dto.ProductFilterDto;
+import com.ecspring.dto.ProductSuggestionDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -20,44 +27,74 @@ import java.util.Optional;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    // Enough to page through every plausible match of a storefront search
+    private static final int FILTER_MAX_MATCHES = 1000;
+    private static final int MAX_SUGGESTIONS = 20;
+
+    @Value("${app.search.max-results:50}")
+    private int maxSearchResults = 50;
+
     private final ProductRepository productRepository;
     private final StorageService storageService;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggester productSuggester;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository, StorageService storageService) {
+    public ProductServiceImpl(ProductRepository productRepository, StorageService storageService,
+                              ProductCatalogCache productCatalogCache, ProductSearchIndex productSearchIndex,
+                              ProductSuggester productSuggester) {
         this.productRepository = productRepository;
         this.storageService = storageService;
+        this.productCatalogCache = productCatalogCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productSuggester = productSuggester;
     }
 
+    // Catalog reads never load entities: they are served from the catalog cache and the
+    // search index, so no lazy feedbacks are touched on the way out
     @Override
-    public List<ProductEntity> getAllProducts() {
-        return productRepository.findAll();
+    public List<ProductDto> getAllProducts() {
+        return toDtos(productCatalogCache.findAll());
     }
 
     @Override
-    public Optional<ProductEntity> getProductById(Long id) {
-        return productRepository.findById(id);
+    public Optional<ProductDto> getProductById(Long id) {
+        return productCatalogCache.findById(id).map(ProductSnapshot::toDto);
     }
 
     @Override
-    public List<ProductEntity> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+    public List<ProductDto> searchProductsByName(String name) {
+        // Most relevant first; a product deleted since the search is simply skipped
+        return productSearchIndex.search(name, maxSearchResults).stream()
+                .flatMap(id -> productCatalogCache.findById(id).stream())
+                .map(ProductSnapshot::toDto)
+                .toList();
     }
 
     @Override
-    public List<ProductEntity> getProductsByPriceRange(Double minPrice, Double maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+    public List<ProductSuggestionDto> suggestProducts(String prefix, int limit) {
+        return productSuggester.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
     }
 
     @Override
-    public List<ProductEntity> getProductsInStock() {
-        return productRepository.findByQuantityGreaterThan(0);
+    public List<ProductDto> getProductsByPriceRange(Double minPrice, Double maxPrice) {
+        return toDtos(productCatalogCache.findByPriceBetween(minPrice, maxPrice));
+    }
+
+    @Override
+    public List<ProductDto> getProductsInStock() {
+        return toDtos(productCatalogCache.findInStock());
     }
 
     @Override
     @Transactional
     public ProductEntity createProduct(ProductEntity product) {
-        return productRepository.save(product);
+        ProductEntity saved = productRepository.save(product);
+        productCatalogCache.put(saved);
+        productSearchIndex.put(saved);
+        productSuggester.put(saved);
+        return saved;
     }
 
     @Override
@@ -71,7 +108,11 @@ public class ProductServiceImpl implements ProductService {
         product.setPrice(productDetails.getPrice());
         product.setQuantity(productDetails.getQuantity());
 
-        return productRepository.save(product);
+        ProductEntity saved = productRepository.save(product);
+        productCatalogCache.put(saved);
+        productSearchIndex.put(saved);
+        productSuggester.put(saved);
+        return saved;
     }
 
     @Override
@@ -86,6 +127,9 @@ public class ProductServiceImpl implements ProductService {
         }
 
         productRepository.delete(product);
+        productCatalogCache.remove(id);
+        productSearchIndex.remove(id);
+        productSuggester.remove(id);
     }
 
     @Override
@@ -109,18 +153,23 @@ public class ProductServiceImpl implements ProductService {
         product.setImageName(filename);
         product.setImageUrl(fileUrl);
 
-        return productRepository.save(product);
+        ProductEntity saved = productRepository.save(product);
+        productCatalogCache.put(saved);
+        return saved;
     }
 
     @Override
-    public Page<ProductEntity> filterProducts(ProductFilterDto filterDto, Pageable pageable) {
+    public Page<ProductDto> filterProducts(ProductFilterDto filterDto, Pageable pageable) {
         Specification<ProductEntity> spec = Specification.where(null);
 
         // Lọc theo tên nếu được cung cấp
+        // The search index finds the matching ids, the database applies the remaining filters and the paging
         if (filterDto.getName() != null && !filterDto.getName().isEmpty()) {
-            spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("name")),
-                    "%" + filterDto.getName().toLowerCase() + "%"));
+            List<Long> matchingIds = productSearchIndex.search(filterDto.getName(), FILTER_MAX_MATCHES);
+            if (matchingIds.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            spec = spec.and((root, query, criteriaBuilder) -> root.get("id").in(matchingIds));
         }
 
         // Lọc theo khoảng giá nếu được cung cấp
@@ -139,6 +188,10 @@ public class ProductServiceImpl implements ProductService {
             spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("quantity"), 0));
         }
 
-        return productRepository.findAll(spec, pageable);
+        return productRepository.findAll(spec, pageable).map(ProductSnapshot::of).map(ProductSnapshot::toDto);
+    }
+
+    private static List<ProductDto> toDtos(List<ProductSnapshot> snapshots) {
+        return snapshots.stream().map(ProductSnapshot::toDto).toList();
     }
 }
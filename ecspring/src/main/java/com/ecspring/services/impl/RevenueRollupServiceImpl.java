@@ -0,0 +1,181 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.entity.RevenueRollupEntity;
+import com.ecspring.repositories.ArchivedOrderRepository;
+import com.ecspring.repositories.OrderRepository;
+import com.ecspring.repositories.RevenueRollupRepository;
+import com.ecspring.services.RevenueRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+@Slf4j
+@Service
+public class RevenueRollupServiceImpl implements RevenueRollupService {
+
+    // Revenue is stored as a double, so differences below a cent are rounding noise rather than drift
+    private static final double REVENUE_TOLERANCE = 0.005;
+
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public RevenueRollupServiceImpl(RevenueRollupRepository revenueRollupRepository, OrderRepository orderRepository,
+                                    ArchivedOrderRepository archivedOrderRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.revenueRollupRepository = revenueRollupRepository;
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional
+    public void recordOrderCreated(LocalDateTime orderDate, String status, double orderTotal) {
+        revenueRollupRepository.addToRollup(orderDate.toLocalDate(), status, 1, orderTotal);
+    }
+
+    @Override
+    @Transactional
+    public void recordStatusChange(LocalDateTime orderDate, String oldStatus, String newStatus, double orderTotal) {
+        if (oldStatus.equals(newStatus)) {
+            return;
+        }
+        // Move the order from its old (day, status) cell to the new one
+        revenueRollupRepository.addToRollup(orderDate.toLocalDate(), oldStatus, -1, -orderTotal);
+        revenueRollupRepository.addToRollup(orderDate.toLocalDate(), newStatus, 1, orderTotal);
+    }
+
+    @Override
+    @Transactional
+    public void recordStatusChanges(List<StatusChange> changes) {
+        // Net the deltas per cell first; a bulk update of hundreds of orders touches only a few cells
+        Map<RollupKey, double[]> deltas = new LinkedHashMap<>();
+        for (StatusChange change : changes) {
+            if (change.oldStatus().equals(change.newStatus())) {
+                continue;
+            }
+            LocalDate day = change.orderDate().toLocalDate();
+            double[] from = deltas.computeIfAbsent(new RollupKey(day, change.oldStatus()), key -> new double[2]);
+            from[0] -= 1;
+            from[1] -= change.orderTotal();
+            double[] to = deltas.computeIfAbsent(new RollupKey(day, change.newStatus()), key -> new double[2]);
+            to[0] += 1;
+            to[1] += change.orderTotal();
+        }
+        deltas.forEach((key, delta) ->
+                revenueRollupRepository.addToRollup(key.day(), key.status(), (long) delta[0], delta[1]));
+    }
+
+    @Override
+    @Transactional
+    public void recordOrderDeleted(LocalDateTime orderDate, String status, double orderTotal) {
+        revenueRollupRepository.addToRollup(orderDate.toLocalDate(), status, -1, -orderTotal);
+    }
+
+    @Override
+    public int rebuildRollups() {
+        // Days known when the rebuild starts; a checkout for a later day creates its own cell
+        SortedSet<LocalDate> days = new TreeSet<>(revenueRollupRepository.findRollupDates());
+        days.addAll(orderRepository.findOrderDays());
+        days.addAll(archivedOrderRepository.findOrderDays());
+
+        // One transaction per day, so checkouts only ever wait for the day being rebuilt
+        int corrected = 0;
+        for (LocalDate day : days) {
+            corrected += transactionTemplate.execute(status -> rebuildDay(day));
+        }
+        return corrected;
+    }
+
+    private int rebuildDay(LocalDate day) {
+        // Lock the day's cells before reading its orders: a checkout or status change that commits while
+        // the day is rebuilt either finished before the lock, and its order is counted below, or its delta
+        // waits for this transaction and lands on top of the corrected value
+        Map<String, RevenueRollupEntity> existing = new HashMap<>();
+        for (RevenueRollupEntity cell : revenueRollupRepository.findByRollupDateForUpdate(day)) {
+            existing.put(cell.getStatus(), cell);
+        }
+
+        // Archived orders still count; a day can have orders on both sides while it is being archived
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+        Map<String, double[]> expected = new LinkedHashMap<>();
+        for (List<OrderRepository.DayStatusSummary> rows : List.of(
+                orderRepository.summarizeByStatusBetween(start, end),
+                archivedOrderRepository.summarizeByStatusBetween(start, end))) {
+            for (OrderRepository.DayStatusSummary row : rows) {
+                double[] totals = expected.computeIfAbsent(row.getStatus(), status -> new double[2]);
+                totals[0] += row.getOrderCount();
+                totals[1] += row.getRevenue();
+            }
+        }
+
+        // Corrections go through the same upsert as the incremental updates, as deltas rather than
+        // absolute values, so a cell a concurrent checkout is creating right now is added to, not overwritten
+        int corrected = 0;
+        for (Map.Entry<String, double[]> entry : expected.entrySet()) {
+            long orderCount = (long) entry.getValue()[0];
+            double revenue = entry.getValue()[1];
+            RevenueRollupEntity cell = existing.remove(entry.getKey());
+            long currentCount = cell == null ? 0 : cell.getOrderCount();
+            double currentRevenue = cell == null ? 0 : cell.getRevenue();
+            if (cell != null && currentCount == orderCount
+                    && Math.abs(currentRevenue - revenue) < REVENUE_TOLERANCE) {
+                continue;
+            }
+            revenueRollupRepository.addToRollup(day, entry.getKey(), orderCount - currentCount,
+                    revenue - currentRevenue);
+            corrected++;
+        }
+
+        // Whatever is left has no orders behind it anymore; cells that incremental updates already
+        // drained to zero are just removed, only non-empty ones count as drift
+        revenueRollupRepository.deleteAllInBatch(existing.values());
+        corrected += (int) existing.values().stream()
+                .filter(cell -> cell.getOrderCount() != 0 || Math.abs(cell.getRevenue()) >= REVENUE_TOLERANCE)
+                .count();
+
+        return corrected;
+    }
+
+    // Nightly safety net against drift, e.g. from price changes or orders edited outside the service
+    @Scheduled(cron = "${app.analytics.rollup-reconcile-cron:0 30 3 * * *}")
+    public void reconcileRollups() {
+        int corrected = rebuildRollups();
+        if (corrected > 0) {
+            log.warn("Revenue rollup reconciliation corrected {} cells", corrected);
+        } else {
+            log.info("Revenue rollups are consistent with orders");
+        }
+    }
+
+    // Seed the rollups once for databases that already hold orders
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeRollups() {
+        if (revenueRollupRepository.count() == 0 && orderRepository.count() > 0) {
+            log.info("Revenue rollups are empty, building them from existing orders");
+            rebuildRollups();
+        }
+    }
+
+    private record RollupKey(LocalDate day, String status) {
+    }
+}
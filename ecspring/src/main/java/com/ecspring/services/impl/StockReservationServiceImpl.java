@@ -0,0 +1,182 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.cache.ProductCatalogCache;
+import com.ecspring.dto.StockHoldDto;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.entity.StockHoldEntity;
+import com.ecspring.repositories.ProductRepository;
+import com.ecspring.repositories.StockHoldRepository;
+import com.ecspring.services.StockReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class StockReservationServiceImpl implements StockReservationService {
+
+    // Takes stock only if enough is left; an update count of 0 means the item would oversell
+    private static final String RESERVE_STOCK_SQL =
+            "UPDATE products SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
+    private static final String RELEASE_STOCK_SQL =
+            "UPDATE products SET quantity = quantity + ? WHERE id = ?";
+    private static final String DELETE_HOLD_ROW_SQL = "DELETE FROM stock_holds WHERE id = ?";
+
+    // Bounds the work of one sweep; a backlog is picked up by the following runs
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    @Value("${app.stock.hold-ttl-minutes:15}")
+    private long holdTtlMinutes = 15;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockHoldRepository stockHoldRepository;
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    public StockReservationServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            StockHoldRepository stockHoldRepository,
+            ProductRepository productRepository,
+            ProductCatalogCache productCatalogCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockHoldRepository = stockHoldRepository;
+        this.productRepository = productRepository;
+        this.productCatalogCache = productCatalogCache;
+    }
+
+    // One JDBC batch for all products. Rows are always locked in ascending id order, so two
+    // checkouts sharing products wait on each other instead of deadlocking.
+    @Override
+    @Transactional
+    public void reserve(SortedMap<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(quantities.entrySet());
+        int[] updateCounts = batchUpdate(RESERVE_STOCK_SQL, rows, (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+            ps.setInt(3, row.getValue());
+        });
+
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                // The exception rolls back the rows already decremented in this batch
+                throw new IllegalStateException("Not enough stock for product: " + productName(rows.get(i).getKey()));
+            }
+        }
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        quantities.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+        productCatalogCache.applyStockDeltas(deltas);
+    }
+
+    @Override
+    @Transactional
+    public void release(SortedMap<Long, Integer> quantities) {
+        batchUpdate(RELEASE_STOCK_SQL, new ArrayList<>(quantities.entrySet()), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+        });
+        productCatalogCache.applyStockDeltas(quantities);
+    }
+
+    @Override
+    @Transactional
+    public StockHoldDto createHold(Long userId, SortedMap<Long, Integer> quantities) {
+        reserve(quantities);
+
+        String holdId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(holdTtlMinutes);
+        List<StockHoldEntity> rows = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            StockHoldEntity row = new StockHoldEntity();
+            row.setHoldId(holdId);
+            row.setUserId(userId);
+            row.setProductId(productId);
+            row.setQuantity(quantity);
+            row.setExpiresAt(expiresAt);
+            rows.add(row);
+        });
+        stockHoldRepository.saveAll(rows);
+
+        return new StockHoldDto(holdId, expiresAt);
+    }
+
+    @Override
+    @Transactional
+    public void confirmHold(String holdId, Long userId, Map<Long, Integer> quantities) {
+        List<StockHoldEntity> rows = stockHoldRepository.findByHoldId(holdId);
+        if (rows.isEmpty() || rows.stream().anyMatch(row -> !row.getUserId().equals(userId))) {
+            throw new IllegalStateException("Stock hold not found or expired: " + holdId);
+        }
+
+        Map<Long, Integer> held = new HashMap<>();
+        rows.forEach(row -> held.merge(row.getProductId(), row.getQuantity(), Integer::sum));
+        if (!held.equals(quantities)) {
+            throw new IllegalStateException("Checkout items do not match stock hold: " + holdId);
+        }
+
+        // The sweeper only deletes expired rows, so whoever deletes a row owns its stock
+        if (stockHoldRepository.deleteLiveHold(holdId, LocalDateTime.now()) != rows.size()) {
+            throw new IllegalStateException("Stock hold not found or expired: " + holdId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int releaseExpiredHolds() {
+        List<StockHoldEntity> expired = stockHoldRepository.findByExpiresAtBeforeOrderById(
+                LocalDateTime.now(), PageRequest.of(0, SWEEP_BATCH_SIZE));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        int[] deleteCounts = batchUpdate(DELETE_HOLD_ROW_SQL, expired, (ps, row) -> ps.setLong(1, row.getId()));
+        SortedMap<Long, Integer> released = new TreeMap<>();
+        int releasedRows = 0;
+        for (int i = 0; i < deleteCounts.length; i++) {
+            if (deleteCounts[i] > 0) {
+                released.merge(expired.get(i).getProductId(), expired.get(i).getQuantity(), Integer::sum);
+                releasedRows++;
+            }
+        }
+        release(released);
+        return releasedRows;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.hold-sweep-interval-ms:60000}")
+    @Transactional
+    public void sweepExpiredHolds() {
+        int released = releaseExpiredHolds();
+        if (released > 0) {
+            log.info("Released {} expired stock holds", released);
+        }
+    }
+
+    private <T> int[] batchUpdate(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter) {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(sql, rows, rows.size(), setter)[0];
+    }
+
+    private String productName(Long productId) {
+        return productRepository.findById(productId)
+                .map(ProductEntity::getName)
+                .orElse(String.valueOf(productId));
+    }
+}
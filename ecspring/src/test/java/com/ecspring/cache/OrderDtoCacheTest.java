@@ -0,0 +1,62 @@
+package com.ecspring.cache;
+
+import com.ecspring.dto.OrderDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderDtoCacheTest {
+
+    private final OrderDtoCache cache = new OrderDtoCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidationTakesEffectWhenTheStatusChangeCommits() {
+        cache.get("ORD-1", () -> load("PENDING"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate("ORD-1");
+        // Until the commit, other readers must keep seeing the committed state
+        assertThat(cache.get("ORD-1", () -> load("SHIPPED")).getStatus()).isEqualTo("PENDING");
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(cache.get("ORD-1", () -> load("SHIPPED")).getStatus()).isEqualTo("SHIPPED");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotKept() {
+        // The status changes while the old state is being read
+        OrderDto stale = cache.get("ORD-2", () -> {
+            OrderDto order = load("PENDING");
+            cache.invalidate("ORD-2");
+            return order;
+        });
+        assertThat(stale.getStatus()).isEqualTo("PENDING");
+
+        assertThat(cache.get("ORD-2", () -> load("PROCESSING")).getStatus()).isEqualTo("PROCESSING");
+    }
+
+    private OrderDto load(String status) {
+        loads.incrementAndGet();
+        OrderDto order = new OrderDto();
+        order.setStatus(status);
+        return order;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecspring.cache;
+
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCatalogCacheTest {
+
+    private final SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProductCatalogCache cache = new ProductCatalogCache(productRepository, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void viewsAreServedFromOneLoad() {
+        when(productRepository.findCatalogEntries()).thenReturn(List.of(
+                entry(1L, "Baguette", 3.5, 10), entry(2L, "Croissant", 2.0, 0), entry(3L, "Sourdough", 6.0, 4)));
+
+        assertThat(cache.findAll()).extracting(ProductSnapshot::id).containsExactly(1L, 2L, 3L);
+        assertThat(cache.findInStock()).extracting(ProductSnapshot::id).containsExactly(1L, 3L);
+        assertThat(cache.findByPriceBetween(2.0, 3.5)).extracting(ProductSnapshot::id).containsExactly(2L, 1L);
+        assertThat(cache.findById(3L)).map(ProductSnapshot::name).hasValue("Sourdough");
+
+        verify(productRepository, times(1)).findCatalogEntries();
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void writesAreAppliedWhenTheyCommit() {
+        when(productRepository.findCatalogEntries()).thenReturn(List.of(
+                entry(1L, "Baguette", 3.5, 10), entry(2L, "Croissant", 2.0, 1)));
+        cache.findAll();
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put(product(1L, "Baguette", 4.0, 10));
+        cache.applyStockDeltas(Map.of(2L, -1));
+        cache.remove(1L);
+        // Until the commit, readers keep seeing the committed catalog
+        assertThat(cache.findInStock()).extracting(ProductSnapshot::id).containsExactly(1L, 2L);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(cache.findAll()).extracting(ProductSnapshot::id).containsExactly(2L);
+        assertThat(cache.findInStock()).isEmpty();
+        verify(productRepository, times(1)).findCatalogEntries();
+        assertThat(meterRegistry.get("cache.evictions").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void loadThatReadACommittedWriteBeforeItWasAppliedIsNotInstalled() {
+        when(productRepository.findCatalogEntries()).thenReturn(List.of(entry(1L, "Baguette", 3.5, 10)));
+        cache.findAll();
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.applyStockDeltas(Map.of(1L, -1));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+
+        // The stock update has committed, but its change has not reached the cache yet
+        when(productRepository.findCatalogEntries()).thenReturn(List.of(entry(1L, "Baguette", 3.5, 9)));
+        cache.reload();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(cache.findById(1L)).map(ProductSnapshot::quantity).hasValue(9);
+    }
+
+    private ProductRepository.CatalogEntry entry(Long id, String name, double price, int quantity) {
+        return projections.createProjection(ProductRepository.CatalogEntry.class,
+                Map.of("id", id, "name", name, "price", price, "quantity", quantity));
+    }
+
+    private static ProductEntity product(Long id, String name, double price, int quantity) {
+        ProductEntity product = new ProductEntity();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
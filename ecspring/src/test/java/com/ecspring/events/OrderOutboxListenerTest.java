@@ -0,0 +1,136 @@
+package com.ecspring.events;
+
+import com.ecspring.config.AsyncConfig;
+import com.ecspring.repositories.OutboxEventRepository;
+import com.ecspring.services.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderOutboxListener.class, OutboxRelay.class, AsyncConfig.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderOutboxListenerTest {
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void committedEventsAreDeliveredAndRemovedFromTheOutbox() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new OrderCreatedEvent("ORD-1", 1L, "buyer"));
+            // Still inside the transaction, nothing may have been sent yet
+            verify(notificationService, never()).deliverOrderNotification(any(), any(), any(), any(), any(), any());
+        });
+
+        verify(notificationService, timeout(5000)).deliverOrderNotification(
+                any(), eq("ORDER_CREATED"), eq("ORD-1"), eq("PENDING"), eq(1L), eq("buyer"));
+        awaitCondition(() -> outboxEventRepository.count() == 0);
+        assertThat(meterRegistry.counter("outbox.relay.delivered").count()).isGreaterThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void rolledBackOrdersLeaveNothingInTheOutbox() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent("ORD-2", "PENDING", "SHIPPED", 1L, "buyer"));
+            status.setRollbackOnly();
+        });
+
+        verify(notificationService, after(500).never()).deliverOrderNotification(any(), any(), any(), any(), any(), any());
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    @Test
+    void coalescedStatusChangesBecomeOneNotification() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(new OrderStatusesChangedEvent(List.of("ORD-4", "ORD-5", "ORD-6"),
+                        "SHIPPED", 1L, "buyer")));
+
+        verify(notificationService, timeout(5000)).deliverOrdersNotification(
+                any(), eq(List.of("ORD-4", "ORD-5", "ORD-6")), eq("SHIPPED"), eq(1L), eq("buyer"));
+        awaitCondition(() -> outboxEventRepository.count() == 0);
+        verify(notificationService, never()).deliverOrderNotification(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void failedDeliveriesAreRetriedWithTheSameNotificationId() throws Exception {
+        doThrow(new IllegalStateException("broker down"))
+                .doNothing()
+                .when(notificationService).deliverOrderNotification(any(), any(), any(), any(), any(), any());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(new OrderStatusChangedEvent("ORD-3", "PENDING", "SHIPPED", 1L, "buyer")));
+
+        // The first attempt fails and the event stays, scheduled for a later retry
+        awaitCondition(() -> outboxEventRepository.findAll().stream().anyMatch(event -> event.getAttempts() == 1));
+        jdbcTemplate.update("UPDATE outbox_events SET available_at = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP)");
+
+        // The post-commit drain may still be finishing its pass, in which case it picks up this request
+        outboxRelay.drain();
+        awaitCondition(() -> outboxEventRepository.count() == 0);
+
+        ArgumentCaptor<String> notificationIds = ArgumentCaptor.forClass(String.class);
+        verify(notificationService, times(2)).deliverOrderNotification(
+                notificationIds.capture(), eq("ORDER_UPDATE"), eq("ORD-3"), eq("SHIPPED"), eq(1L), eq("buyer"));
+        assertThat(notificationIds.getAllValues().get(1)).isEqualTo(notificationIds.getAllValues().get(0));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ecspring.search;
+
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LuceneProductSearchIndexTest {
+
+    private final SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final LuceneProductSearchIndex index = new LuceneProductSearchIndex(productRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findCatalogEntries()).thenReturn(List.of(
+                entry(1L, "Sourdough loaf", "Slow fermented country bread"),
+                entry(2L, "Croissant", "Flaky butter pastry"),
+                entry(3L, "Almond croissant", "Croissant filled with almond cream"),
+                entry(4L, "Bánh mì", "Vietnamese baguette with pickled vegetables"),
+                entry(5L, "Rye bread", null)));
+        index.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        index.close();
+    }
+
+    @Test
+    void matchesPrefixesTyposAndUnaccentedText() {
+        assertThat(index.search("crois", 10)).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.search("sourdugh", 10)).containsExactly(1L);
+        assertThat(index.search("banh mi", 10)).containsExactly(4L);
+        // Every term has to match
+        assertThat(index.search("almond bread", 10)).isEmpty();
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        // Bread only appears in the description of the sourdough
+        assertThat(index.search("bread", 10)).containsExactly(5L, 1L);
+        assertThat(index.search("baguette", 10)).containsExactly(4L);
+    }
+
+    @Test
+    void rebuildDoesNotUndoAWriteCommittedWhileItReadTheProducts() {
+        when(productRepository.findCatalogEntries())
+                .thenAnswer(invocation -> {
+                    index.put(product(6L, "Pain au chocolat", null));
+                    return List.of(entry(2L, "Croissant", "Flaky butter pastry"));
+                })
+                .thenReturn(List.of(
+                        entry(2L, "Croissant", "Flaky butter pastry"),
+                        entry(6L, "Pain au chocolat", null)));
+
+        index.rebuild();
+
+        assertThat(index.search("chocolat", 10)).containsExactly(6L);
+        assertThat(index.search("sourdough", 10)).isEmpty();
+    }
+
+    @Test
+    void writesBecomeSearchableWhenTheyCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.put(product(2L, "Pain au chocolat", "Flaky butter pastry with chocolate"));
+        index.remove(5L);
+        assertThat(index.search("chocolat", 10)).isEmpty();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(index.search("chocolat", 10)).containsExactly(2L);
+        assertThat(index.search("croissant", 10)).containsExactly(3L);
+        assertThat(index.search("rye", 10)).isEmpty();
+    }
+
+    private ProductRepository.CatalogEntry entry(Long id, String name, String description) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", id);
+        values.put("name", name);
+        values.put("description", description);
+        return projections.createProjection(ProductRepository.CatalogEntry.class, values);
+    }
+
+    private static ProductEntity product(Long id, String name, String description) {
+        ProductEntity product = new ProductEntity();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        return product;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecspring.search;
+
+import com.ecspring.dto.ProductSuggestionDto;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductSuggesterTest {
+
+    private final SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSuggester suggester = new ProductSuggester(productRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findCatalogEntries()).thenReturn(List.of(
+                entry(1L, "Croissant"),
+                entry(2L, "Almond croissant"),
+                entry(3L, "Cinnamon roll"),
+                entry(4L, "Bánh mì"),
+                entry(5L, "Crème brûlée")));
+        suggester.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void namesStartingWithTheTextRankAboveLaterWordMatches() {
+        assertThat(ids("cr")).containsExactly(5L, 1L, 2L);
+        assertThat(ids("cr", 2)).containsExactly(5L, 1L);
+        assertThat(ids("almond cro")).containsExactly(2L);
+        assertThat(ids("BANH M")).containsExactly(4L);
+        assertThat(ids("brule")).containsExactly(5L);
+        assertThat(ids("x")).isEmpty();
+        assertThat(ids(" ")).isEmpty();
+
+        // Everything after the initial load is answered from memory
+        verify(productRepository).findCatalogEntries();
+        verifyNoMoreInteractions(productRepository);
+    }
+
+    @Test
+    void rebuildDoesNotUndoAWriteCommittedWhileItReadTheNames() {
+        when(productRepository.findCatalogEntries())
+                .thenAnswer(invocation -> {
+                    suggester.put(product(6L, "Cranberry scone"));
+                    return List.of(entry(1L, "Croissant"));
+                })
+                .thenReturn(List.of(entry(1L, "Croissant"), entry(6L, "Cranberry scone")));
+
+        suggester.rebuild();
+
+        assertThat(ids("cr")).containsExactly(6L, 1L);
+    }
+
+    @Test
+    void writesArePatchedInWhenTheyCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        suggester.put(product(6L, "Cranberry scone"));
+        suggester.put(product(1L, "Butter croissant"));
+        suggester.remove(5L);
+        assertThat(ids("cr")).containsExactly(5L, 1L, 2L);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(suggester.suggest("cr", 10)).extracting(ProductSuggestionDto::getName)
+                .containsExactly("Cranberry scone", "Almond croissant", "Butter croissant");
+    }
+
+    private List<Long> ids(String prefix) {
+        return ids(prefix, 10);
+    }
+
+    private List<Long> ids(String prefix, int limit) {
+        return suggester.suggest(prefix, limit).stream().map(ProductSuggestionDto::getId).toList();
+    }
+
+    private ProductRepository.CatalogEntry entry(Long id, String name) {
+        return projections.createProjection(ProductRepository.CatalogEntry.class, Map.of("id", id, "name", name));
+    }
+
+    private static ProductEntity product(Long id, String name) {
+        ProductEntity product = new ProductEntity();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
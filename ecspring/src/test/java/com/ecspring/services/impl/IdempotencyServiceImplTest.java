@@ -0,0 +1,192 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.OrderDto;
+import com.ecspring.dto.ShippingInfoDto;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.exception.IdempotencyKeyConflictException;
+import com.ecspring.repositories.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderServiceFixture.class)
+// Commits for real, so it gets its own database instead of the shared one the other tests roll back
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:ecspring_idempotency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceImplTest {
+
+    private static final int STOCK = 20;
+
+    @Autowired
+    private OrderServiceFixture fixture;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LineItemRepository lineItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private IdempotencyServiceImpl idempotencyService;
+    private OrderServiceImpl orderService;
+    private Long userId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyKeyRepository.deleteAll();
+        invoiceRepository.deleteAll();
+        lineItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        idempotencyService = new IdempotencyServiceImpl(idempotencyKeyRepository,
+                new ObjectMapper().findAndRegisterModules(), transactionManager);
+        orderService = fixture.orderService().build();
+        userId = fixture.saveBuyer().getId();
+
+        ProductEntity product = new ProductEntity();
+        product.setName("Brioche");
+        product.setPrice(4.0);
+        product.setQuantity(STOCK);
+        productId = productRepository.save(product).getId();
+    }
+
+    @Test
+    void retriesReplayTheStoredOrderWithoutTouchingOrderTables() {
+        CheckoutRequestDto request = checkoutRequest(2);
+        OrderDto first = checkoutOnce("retry-1", request);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        OrderDto replayed = checkoutOnce("retry-1", checkoutRequest(2));
+        // The replay is a single lookup of the key, nothing is written
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        assertThat(replayed).isEqualTo(first);
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(stockLevel()).isEqualTo(STOCK - 2);
+    }
+
+    @Test
+    void reusingAKeyForADifferentRequestIsRejected() {
+        checkoutOnce("retry-2", checkoutRequest(2));
+
+        assertThatThrownBy(() -> checkoutOnce("retry-2", checkoutRequest(3)))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedCheckoutsDoNotConsumeTheKey() {
+        assertThatThrownBy(() -> checkoutOnce("retry-3", checkoutRequest(STOCK + 1)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(idempotencyKeyRepository.count()).isZero();
+
+        OrderDto order = checkoutOnce("retry-3", checkoutRequest(STOCK));
+        assertThat(order.getId()).isNotNull();
+    }
+
+    @Test
+    void concurrentDuplicatesPlaceOneOrder() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OrderDto>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return checkoutOnce("double-click", checkoutRequest(1));
+            }));
+        }
+        start.countDown();
+
+        List<String> orderNumbers = new ArrayList<>();
+        for (Future<OrderDto> future : futures) {
+            orderNumbers.add(future.get(30, TimeUnit.SECONDS).getOrderNumber());
+        }
+        executor.shutdown();
+
+        assertThat(orderNumbers).containsOnly(orderNumbers.get(0));
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(stockLevel()).isEqualTo(STOCK - 1);
+    }
+
+    @Test
+    void expiredKeysArePurged() {
+        checkoutOnce("retry-4", checkoutRequest(1));
+        jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP)");
+
+        Integer purged = new TransactionTemplate(transactionManager).execute(status -> idempotencyService.purgeExpiredKeys());
+        assertThat(purged).isEqualTo(1);
+        assertThat(idempotencyKeyRepository.count()).isZero();
+    }
+
+    private OrderDto checkoutOnce(String key, CheckoutRequestDto request) {
+        return idempotencyService.checkoutOnce(userId, key, request,
+                () -> orderService.createOrderFromRequest("buyer", request));
+    }
+
+    private int stockLevel() {
+        return productRepository.findById(productId).orElseThrow().getQuantity();
+    }
+
+    private CheckoutRequestDto checkoutRequest(int quantity) {
+        CheckoutRequestDto request = new CheckoutRequestDto();
+        request.setCustomerInfo(new ShippingInfoDto("Buyer", "Test", "555-0100", "1 Main St", "Springfield", "IL", "62701"));
+        request.setOrderItems(List.of(new CheckoutOrderItemDto(productId, quantity, 4.0)));
+        request.setPaymentMethod("CASH");
+        request.setTotalAmount(4.0 * quantity);
+        request.setDirectPurchase(true);
+        return request;
+    }
+}
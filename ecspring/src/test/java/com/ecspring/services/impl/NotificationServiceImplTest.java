@@ -0,0 +1,47 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.NotificationDto;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.repositories.UserRepository;
+import com.ecspring.services.NotificationPersistenceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationServiceImplTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final NotificationPersistenceService notificationPersistenceService = mock(NotificationPersistenceService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final NotificationServiceImpl notificationService =
+            new NotificationServiceImpl(messagingTemplate, notificationPersistenceService, userRepository);
+
+    @Test
+    void retryAfterAFailedBroadcastSendsItAgainUnderTheSameId() {
+        UserEntity user = new UserEntity("buyer", "buyer@bakery.test", "Buyer");
+        when(userRepository.findByUsername("buyer")).thenReturn(user);
+        doThrow(new MessageDeliveryException("broker down")).doNothing()
+                .when(messagingTemplate).convertAndSend(eq("/topic/notifications/admin"), any(Object.class));
+
+        assertThatThrownBy(() -> notificationService.deliverOrderNotification(
+                "event-1", "ORDER_UPDATE", "ORD-1", "SHIPPED", 1L, "buyer"))
+                .isInstanceOf(MessageDeliveryException.class);
+        notificationService.deliverOrderNotification("event-1", "ORDER_UPDATE", "ORD-1", "SHIPPED", 1L, "buyer");
+
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/notifications/user/buyer"),
+                argThat((NotificationDto notification) -> "event-1".equals(notification.getId())));
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/notifications/admin"), any(Object.class));
+        // Writing the row again is left to saveNotification, which keeps the first one
+        verify(notificationPersistenceService, times(2)).saveNotification(any(), eq(user));
+    }
+}
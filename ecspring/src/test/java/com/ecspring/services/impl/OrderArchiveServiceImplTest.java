@@ -0,0 +1,162 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.OrderDto;
+import com.ecspring.entity.InvoiceEntity;
+import com.ecspring.entity.LineItemEntity;
+import com.ecspring.entity.OrderEntity;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.repositories.*;
+import com.ecspring.services.OrderArchiveService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderArchiveServiceImpl.class, OrderServiceFixture.class})
+// Small chunks so that three old orders take more than one
+@TestPropertySource(properties = "app.archive.batch-size=2")
+class OrderArchiveServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+    private static final LocalDateTime CUTOFF = NOW.minusDays(365);
+
+    @Autowired
+    private OrderServiceFixture fixture;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private RevenueRollupRepository revenueRollupRepository;
+
+    private ProductEntity rye;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity user = new UserEntity("regular", "regular@bakery.test", "Regular");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        rye = new ProductEntity();
+        rye.setName("Rye");
+        rye.setPrice(5.0);
+        rye.setQuantity(100);
+        rye.setImageUrl("/images/rye.png");
+        entityManager.persist(rye);
+
+        OrderEntity oldest = order(user, "ORD-OLD-1", CUTOFF.minusDays(30), "DELIVERED", 2);
+        invoice(oldest, "INV-OLD-1");
+        order(user, "ORD-OLD-3", CUTOFF.minusDays(10), "DELIVERED", 3);
+        // Too recent, or still able to change status (a cancelled order can be reinstated)
+        order(user, "ORD-OLD-PENDING", CUTOFF.minusDays(40), "PENDING", 1);
+        order(user, "ORD-RECENT", NOW.minusDays(3), "DELIVERED", 1);
+        order(user, "ORD-OLD-CANCELLED", CUTOFF.minusDays(20), "CANCELLED", 1);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void movesOldFinishedOrdersWithTheirItemsAndInvoicesInChunks() {
+        int archived = orderArchiveService.archiveOrdersPlacedBefore(CUTOFF);
+
+        assertThat(archived).isEqualTo(2);
+        assertThat(orderRepository.findAll()).extracting(OrderEntity::getOrderNumber)
+                .containsExactlyInAnyOrder("ORD-OLD-PENDING", "ORD-RECENT", "ORD-OLD-CANCELLED");
+        assertThat(count("orders_archive")).isEqualTo(2);
+        assertThat(count("line_items")).isEqualTo(3);
+        assertThat(count("line_items_archive")).isEqualTo(2);
+        assertThat(count("invoices")).isZero();
+        assertThat(count("invoices_archive")).isEqualTo(1);
+
+        assertThat(orderArchiveService.archiveOrdersPlacedBefore(CUTOFF)).isZero();
+    }
+
+    @Test
+    void archivedOrdersAreStillFoundByOrderNumber() {
+        orderArchiveService.archiveOrdersPlacedBefore(CUTOFF);
+        OrderServiceImpl orderService = fixture.orderService().orderArchiveService(orderArchiveService).build();
+
+        OrderDto order = orderService.getOrderByOrderNumber("ORD-OLD-1");
+
+        assertThat(order.getStatus()).isEqualTo("DELIVERED");
+        assertThat(order.getUserName()).isEqualTo("Regular");
+        assertThat(order.getTotalAmount()).isEqualTo(10.0);
+        assertThat(order.getItems()).singleElement().satisfies(item -> {
+            assertThat(item.getProductId()).isEqualTo(rye.getId());
+            assertThat(item.getProductName()).isEqualTo("Rye");
+            assertThat(item.getProductImageUrl()).isEqualTo("/images/rye.png");
+            assertThat(item.getLineTotal()).isEqualTo(10.0);
+        });
+        assertThat(orderService.getOrderByOrderNumber("ORD-RECENT").getStatus()).isEqualTo("DELIVERED");
+    }
+
+    @Test
+    void rebuiltRollupsStillCountArchivedOrders() {
+        RevenueRollupServiceImpl revenueRollupService = new RevenueRollupServiceImpl(revenueRollupRepository,
+                orderRepository, archivedOrderRepository, transactionManager);
+        revenueRollupService.rebuildRollups();
+
+        orderArchiveService.archiveOrdersPlacedBefore(CUTOFF);
+
+        assertThat(revenueRollupService.rebuildRollups()).isZero();
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private OrderEntity order(UserEntity user, String orderNumber, LocalDateTime orderDate, String status, int quantity) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
+        order.setStatus(status);
+        order.setPaymentMethod("CASH");
+        order.setUser(user);
+        order.setTotalAmount(rye.getPrice() * quantity);
+        entityManager.persist(order);
+
+        LineItemEntity item = new LineItemEntity();
+        item.setOrder(order);
+        item.setProduct(rye);
+        item.setQuantity(quantity);
+        item.setUnitPrice(rye.getPrice());
+        entityManager.persist(item);
+        return order;
+    }
+
+    private void invoice(OrderEntity order, String invoiceNumber) {
+        InvoiceEntity invoice = new InvoiceEntity();
+        invoice.setInvoiceNumber(invoiceNumber);
+        invoice.setDateCreated(order.getOrderDate());
+        invoice.setOrder(order);
+        entityManager.persist(invoice);
+    }
+}
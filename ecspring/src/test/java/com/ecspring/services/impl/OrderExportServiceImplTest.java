@@ -0,0 +1,158 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.entity.ArchivedLineItemEntity;
+import com.ecspring.entity.ArchivedOrderEntity;
+import com.ecspring.entity.LineItemEntity;
+import com.ecspring.entity.OrderEntity;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.services.OrderExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderExportServiceImpl.class)
+// H2 rejects the negative fetch size that makes MySQL stream
+@TestPropertySource(properties = "app.export.fetch-size=2")
+class OrderExportServiceImplTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 14, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        user = new UserEntity("=cmd", "sneaky@bakery.test", "Sneaky");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        ProductEntity loaf = product("Loaf, \"country\" style", 4.5);
+        ProductEntity bun = product("Bun", 0.75);
+
+        OrderEntity first = order(user, "ORD-1", DAY.plusHours(9));
+        item(first, loaf, 2);
+        item(first, bun, 4);
+        order(user, "ORD-2", DAY.plusHours(10)); // no line items
+        order(user, "ORD-OUTSIDE", DAY.plusDays(2));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void csvHasOneRowPerLineItemAndEscapesText() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long orders = orderExportService.exportOrders(DAY, DAY.plusDays(1), OrderExportService.Format.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(orders).isEqualTo(2);
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).startsWith("order_id,order_number,");
+        assertThat(lines.get(1)).contains(",ORD-1,2025-03-14T09:00,PENDING,'=cmd,CASH,12.0,")
+                .contains(",\"Loaf, \"\"country\"\" style\",2,4.5,9.0");
+        assertThat(lines.get(2)).contains(",Bun,4,0.75,3.0");
+        assertThat(lines.get(3)).contains(",ORD-2,").endsWith(",0.0,,,,,");
+        assertThat(String.join("\n", lines)).doesNotContain("ORD-OUTSIDE");
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerOrderWithNestedItems() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long orders = orderExportService.exportOrders(DAY, DAY.plusDays(1), OrderExportService.Format.NDJSON, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(orders).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("orderNumber").asText()).isEqualTo("ORD-1");
+        assertThat(first.get("totalAmount").asDouble()).isEqualTo(12.0);
+        assertThat(first.get("items")).hasSize(2);
+        assertThat(first.get("items").get(0).get("productName").asText()).isEqualTo("Loaf, \"country\" style");
+        assertThat(objectMapper.readTree(lines.get(1)).get("items")).isEmpty();
+    }
+
+    @Test
+    void archivedOrdersAreMergedInDateOrder() throws Exception {
+        ArchivedOrderEntity archived = new ArchivedOrderEntity();
+        archived.setId(1_000_000L);
+        archived.setOrderNumber("ORD-ARCHIVED");
+        archived.setOrderDate(DAY.plusHours(9).plusMinutes(30));
+        archived.setStatus("DELIVERED");
+        archived.setPaymentMethod("CASH");
+        archived.setUser(entityManager.find(UserEntity.class, user.getId()));
+        archived.setTotalAmount(5.0);
+        archived.setArchivedAt(DAY.plusYears(1));
+        entityManager.persist(archived);
+
+        ArchivedLineItemEntity item = new ArchivedLineItemEntity();
+        item.setId(2_000_000L);
+        item.setOrderId(archived.getId());
+        item.setProductId(999L);
+        item.setProductName("Discontinued tart");
+        item.setQuantity(2);
+        item.setUnitPrice(2.5);
+        entityManager.persist(item);
+        entityManager.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long orders = orderExportService.exportOrders(DAY, DAY.plusDays(1), OrderExportService.Format.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(orders).isEqualTo(3);
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(3)).contains(",ORD-ARCHIVED,").contains(",Discontinued tart,2,2.5,5.0");
+        assertThat(lines.get(4)).contains(",ORD-2,");
+    }
+
+    private ProductEntity product(String name, double price) {
+        ProductEntity product = new ProductEntity();
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(100);
+        return entityManager.persist(product);
+    }
+
+    private OrderEntity order(UserEntity user, String orderNumber, LocalDateTime orderDate) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
+        order.setStatus("PENDING");
+        order.setPaymentMethod("CASH");
+        order.setUser(user);
+        order.setTotalAmount(0.0);
+        return entityManager.persist(order);
+    }
+
+    private void item(OrderEntity order, ProductEntity product, int quantity) {
+        LineItemEntity item = new LineItemEntity();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setUnitPrice(product.getPrice());
+        entityManager.persist(item);
+        order.setTotalAmount(order.getTotalAmount() + product.getPrice() * quantity);
+    }
+}
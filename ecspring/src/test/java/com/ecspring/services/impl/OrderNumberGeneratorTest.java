@@ -0,0 +1,61 @@
+package com.ecspring.services.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderNumberGeneratorTest {
+
+    @Test
+    void numbersAreStrictlyIncreasingWithinANode() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7);
+
+        // Far more than 4096 per millisecond, so the sequence wraps and borrows ahead
+        String previous = generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.next();
+            assertThat(next).hasSameSizeAs(previous).isGreaterThan(previous);
+            previous = next;
+        }
+        assertThat(previous).matches("ORD-\\d{8}-[0-9A-Z]{13}");
+    }
+
+    @Test
+    void nodesNeverCollide() throws Exception {
+        List<OrderNumberGenerator> nodes = List.of(new OrderNumberGenerator(0), new OrderNumberGenerator(1),
+                new OrderNumberGenerator(2), new OrderNumberGenerator(1023));
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            OrderNumberGenerator node = nodes.get(t % nodes.size());
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    assertThat(seen.add(node.next())).isTrue();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(seen).hasSize(8 * 20_000);
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThatThrownBy(() -> new OrderNumberGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new OrderNumberGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.PriceQuoteDto;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.exception.PriceMismatchException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderPricingTest {
+
+    private final Map<Long, ProductEntity> products = Map.of(
+            1L, product(1L, "Macaron", 0.1, 100),
+            2L, product(2L, "Eclair", 0.2, 1));
+
+    @Test
+    void totalsAreExactToTheCent() {
+        // 0.1 * 3 + 0.2 is 0.5000000000000001 in double arithmetic
+        PriceQuoteDto quote = OrderPricing.quote(List.of(item(1L, 3, null), item(2L, 1, null)), products);
+
+        assertThat(quote.getTotalAmount()).isEqualByComparingTo("0.50");
+        assertThat(quote.getTotalAmount().scale()).isEqualTo(2);
+        assertThat(quote.getLines().get(0).getLineTotal()).isEqualByComparingTo("0.30");
+        assertThat(quote.getLines().get(1).getInStock()).isTrue();
+        assertThat(OrderPricing.quote(List.of(item(2L, 2, null)), products).getLines().get(0).getInStock()).isFalse();
+    }
+
+    @Test
+    void clientFiguresMustMatchTheQuote() {
+        List<CheckoutOrderItemDto> items = List.of(item(1L, 3, 0.1), item(2L, 1, 0.2));
+        PriceQuoteDto quote = OrderPricing.quote(items, products);
+
+        // What a browser adds up in floating point is fine as long as it rounds to the same cents
+        assertThatCode(() -> OrderPricing.verify(items, 0.1 * 3 + 0.2, quote)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> OrderPricing.verify(items, 0.49, quote))
+                .isInstanceOf(PriceMismatchException.class)
+                .hasMessageContaining("0.50")
+                .extracting(e -> ((PriceMismatchException) e).getQuote())
+                .isSameAs(quote);
+        assertThatThrownBy(() -> OrderPricing.verify(List.of(item(1L, 3, 0.09), item(2L, 1, 0.2)), 0.5, quote))
+                .isInstanceOf(PriceMismatchException.class)
+                .hasMessageContaining("Macaron");
+    }
+
+    private static CheckoutOrderItemDto item(Long productId, int quantity, Double price) {
+        return new CheckoutOrderItemDto(productId, quantity, price);
+    }
+
+    private static ProductEntity product(Long id, String name, double price, int quantity) {
+        ProductEntity product = new ProductEntity();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
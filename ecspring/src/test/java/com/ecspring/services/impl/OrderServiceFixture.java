@@ -0,0 +1,110 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.cache.OrderDtoCache;
+import com.ecspring.cache.ProductCatalogCache;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.repositories.*;
+import com.ecspring.services.OrderArchiveService;
+import com.ecspring.services.RevenueRollupService;
+import com.ecspring.services.StockReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Builds order services over the repositories of a JPA slice test, with real
+ * stock handling and mocks for every other collaborator. A test replaces only
+ * the collaborators it checks, so a new constructor argument is wired here
+ * once instead of in every test. Add it with @Import(OrderServiceFixture.class).
+ */
+@TestComponent
+class OrderServiceFixture {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private LineItemRepository lineItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private RevenueRollupRepository revenueRollupRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    OrderServiceBuilder orderService() {
+        return new OrderServiceBuilder();
+    }
+
+    StockReservationServiceImpl stockReservationService() {
+        return stockReservationService(new ProductCatalogCache(productRepository, new SimpleMeterRegistry()));
+    }
+
+    StockReservationServiceImpl stockReservationService(ProductCatalogCache productCatalogCache) {
+        return new StockReservationServiceImpl(jdbcTemplate, stockHoldRepository, productRepository,
+                productCatalogCache);
+    }
+
+    // The customer most tests place their orders as
+    UserEntity saveBuyer() {
+        UserEntity user = new UserEntity("buyer", "buyer@bakery.test", "Buyer");
+        user.setPassword("secret");
+        return userRepository.save(user);
+    }
+
+    class OrderServiceBuilder {
+
+        private ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        private RevenueRollupService revenueRollupService = mock(RevenueRollupService.class);
+        private StockReservationService stockReservationService;
+        private OrderArchiveService orderArchiveService = mock(OrderArchiveService.class);
+
+        OrderServiceBuilder eventPublisher(ApplicationEventPublisher eventPublisher) {
+            this.eventPublisher = eventPublisher;
+            return this;
+        }
+
+        OrderServiceBuilder revenueRollupService(RevenueRollupService revenueRollupService) {
+            this.revenueRollupService = revenueRollupService;
+            return this;
+        }
+
+        OrderServiceBuilder stockReservationService(StockReservationService stockReservationService) {
+            this.stockReservationService = stockReservationService;
+            return this;
+        }
+
+        OrderServiceBuilder orderArchiveService(OrderArchiveService orderArchiveService) {
+            this.orderArchiveService = orderArchiveService;
+            return this;
+        }
+
+        OrderServiceImpl build() {
+            return new OrderServiceImpl(orderRepository, userRepository, cartRepository, lineItemRepository,
+                    productRepository, invoiceRepository, revenueRollupRepository, eventPublisher,
+                    revenueRollupService,
+                    stockReservationService != null ? stockReservationService
+                            : OrderServiceFixture.this.stockReservationService(),
+                    new OrderNumberGenerator(0), orderArchiveService, new OrderDtoCache());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.cache.ProductCatalogCache;
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.ShippingInfoDto;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fires many checkouts from parallel, separately committed transactions and
+ * checks that stock never goes below zero and that carts sharing products
+ * never deadlock.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderServiceFixture.class)
+// Commits for real, so it gets its own database instead of the shared one the other tests roll back
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:ecspring_concurrency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceImplConcurrencyTest {
+
+    private static final int STOCK = 50;
+    private static final int CHECKOUTS = 300;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private OrderServiceFixture fixture;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LineItemRepository lineItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    private ProductCatalogCache productCatalogCache;
+    private OrderServiceImpl orderService;
+    private TransactionTemplate transactionTemplate;
+    private Long productId;
+    private Long otherProductId;
+
+    @BeforeEach
+    void setUp() {
+        stockHoldRepository.deleteAll();
+        invoiceRepository.deleteAll();
+        lineItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        productCatalogCache = new ProductCatalogCache(productRepository, new SimpleMeterRegistry());
+        orderService = fixture.orderService()
+                .stockReservationService(fixture.stockReservationService(productCatalogCache))
+                .build();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        fixture.saveBuyer();
+
+        ProductEntity product = new ProductEntity();
+        product.setName("Sourdough");
+        product.setPrice(6.0);
+        product.setQuantity(STOCK);
+        productId = productRepository.save(product).getId();
+
+        ProductEntity otherProduct = new ProductEntity();
+        otherProduct.setName("Baguette");
+        otherProduct.setPrice(3.5);
+        otherProduct.setQuantity(CHECKOUTS * 2);
+        otherProductId = productRepository.save(otherProduct).getId();
+        productCatalogCache.findAll();
+    }
+
+    @Test
+    void parallelCheckoutsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            orderService.createOrderFromRequest("buyer",
+                                    checkoutRequest(new CheckoutOrderItemDto(productId, 1, 6.0))));
+                    succeeded.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    outOfStock.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            // Anything other than a clean sale or an out-of-stock rejection fails the test here
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        ProductEntity product = productRepository.findById(productId).orElseThrow();
+        assertThat(product.getQuantity()).isZero();
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(outOfStock.get()).isEqualTo(CHECKOUTS - STOCK);
+        assertThat(orderRepository.count()).isEqualTo(STOCK);
+        // Committed decrements reached the catalog exactly once
+        assertThat(productCatalogCache.findById(productId).orElseThrow().quantity()).isZero();
+    }
+
+    @Test
+    void checkoutsListingSharedProductsInOppositeOrderDoNotDeadlock() throws Exception {
+        // Enough stock for everyone, so every checkout must succeed
+        productRepository.findById(productId).ifPresent(product -> {
+            product.setQuantity(CHECKOUTS * 2);
+            productRepository.save(product);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            CheckoutOrderItemDto sourdough = new CheckoutOrderItemDto(productId, 1, 6.0);
+            CheckoutOrderItemDto baguette = new CheckoutOrderItemDto(otherProductId, 1, 3.5);
+            CheckoutRequestDto request = i % 2 == 0
+                    ? checkoutRequest(sourdough, baguette)
+                    : checkoutRequest(baguette, sourdough);
+            futures.add(executor.submit(() -> {
+                start.await();
+                transactionTemplate.executeWithoutResult(status ->
+                        orderService.createOrderFromRequest("buyer", request));
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            // A deadlock victim surfaces here as a failed checkout
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(orderRepository.count()).isEqualTo(CHECKOUTS);
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(CHECKOUTS);
+        assertThat(productRepository.findById(otherProductId).orElseThrow().getQuantity()).isEqualTo(CHECKOUTS);
+    }
+
+    private CheckoutRequestDto checkoutRequest(CheckoutOrderItemDto... items) {
+        CheckoutRequestDto request = new CheckoutRequestDto();
+        request.setCustomerInfo(new ShippingInfoDto("Buyer", "Test", "555-0100", "1 Main St", "Springfield", "IL", "62701"));
+        request.setOrderItems(List.of(items));
+        request.setPaymentMethod("CASH");
+        request.setTotalAmount(Arrays.stream(items).mapToDouble(item -> item.getPrice() * item.getQuantity()).sum());
+        request.setDirectPurchase(true);
+        return request;
+    }
+}
@@ -0,0 +1,371 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.BulkStatusUpdateResultDto;
+import com.ecspring.dto.OrderDto;
+import com.ecspring.dto.OrderPageDto;
+import com.ecspring.dto.PriceQuoteDto;
+import com.ecspring.dto.ShippingInfoDto;
+import com.ecspring.entity.LineItemEntity;
+import com.ecspring.entity.OrderEntity;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.repositories.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Pins the number of SQL statements issued by the order listing methods, so a
+ * per-order lookup sneaking back into the listing path fails the build.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderServiceFixture.class)
+class OrderServiceImplQueryCountTest {
+
+    private static final int USERS = 3;
+    private static final int ORDERS_PER_USER = 20;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderServiceFixture fixture;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private LineItemRepository lineItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private RevenueRollupRepository revenueRollupRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private RevenueRollupServiceImpl revenueRollupService;
+
+    private OrderServiceImpl orderService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        revenueRollupService = new RevenueRollupServiceImpl(revenueRollupRepository, orderRepository,
+                archivedOrderRepository, transactionManager);
+        orderService = fixture.orderService().revenueRollupService(revenueRollupService).build();
+
+        List<ProductEntity> products = new ArrayList<>();
+        for (int p = 0; p < ITEMS_PER_ORDER * 2; p++) {
+            ProductEntity product = new ProductEntity();
+            product.setName("Product " + p);
+            product.setPrice(2.5 + p);
+            product.setQuantity(100);
+            products.add(entityManager.persist(product));
+        }
+
+        for (int u = 0; u < USERS; u++) {
+            UserEntity user = new UserEntity("user" + u, "user" + u + "@bakery.test", "User " + u);
+            user.setPassword("secret");
+            entityManager.persist(user);
+
+            for (int o = 0; o < ORDERS_PER_USER; o++) {
+                OrderEntity order = new OrderEntity();
+                order.setOrderNumber("ORD-TEST-" + u + "-" + o);
+                order.setOrderDate(LocalDateTime.now().minusHours(o));
+                order.setStatus(o % 2 == 0 ? "PENDING" : "DELIVERED");
+                order.setPaymentMethod("CASH");
+                order.setUser(user);
+                order.setTotalAmount(0.0);
+                entityManager.persist(order);
+
+                for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                    ProductEntity product = products.get((o + i) % products.size());
+                    LineItemEntity item = new LineItemEntity();
+                    item.setOrder(order);
+                    item.setProduct(product);
+                    item.setQuantity(i + 1);
+                    item.setUnitPrice(product.getPrice());
+                    entityManager.persist(item);
+                    order.setTotalAmount(order.getTotalAmount() + product.getPrice() * item.getQuantity());
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void getAllOrdersUsesConstantNumberOfStatements() {
+        List<OrderDto> orders = orderService.getAllOrders();
+
+        assertThat(orders).hasSize(USERS * ORDERS_PER_USER);
+        assertThat(orders).allSatisfy(order -> assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER));
+        // orders joined to users, then one batched query for line items joined to products
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getOrdersByUsernameUsesConstantNumberOfStatements() {
+        List<OrderDto> orders = orderService.getOrdersByUsername("user1");
+
+        assertThat(orders).hasSize(ORDERS_PER_USER);
+        assertThat(orders).allSatisfy(order -> assertThat(order.getUserName()).isEqualTo("User 1"));
+        // user lookup, its roles, orders, batched line items joined to products
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void getOrdersByStatusUsesConstantNumberOfStatements() {
+        List<OrderDto> orders = orderService.getOrdersByStatus("DELIVERED");
+
+        assertThat(orders).hasSize(USERS * ORDERS_PER_USER / 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getOrdersPageWalksEveryOrderWithConstantStatementsPerPage() {
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            OrderPageDto page = orderService.getOrdersPage(null, null, null, cursor, 7);
+
+            // one keyset query for the page joined to users, one for its line items
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(7);
+            page.getItems().forEach(order -> assertThat(seen.add(order.getId())).isTrue());
+
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(USERS * ORDERS_PER_USER);
+        assertThat(pages).isEqualTo((USERS * ORDERS_PER_USER + 6) / 7);
+    }
+
+    @Test
+    void singleOrderIsFetchedInOneStatement() {
+        OrderDto byNumber = orderService.getOrderByOrderNumber("ORD-TEST-1-4");
+        // the order joined to its user, line items and their products
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(byNumber.getUserName()).isEqualTo("User 1");
+        assertThat(byNumber.getItems()).hasSize(ITEMS_PER_ORDER)
+                .allSatisfy(item -> assertThat(item.getProductName()).startsWith("Product "));
+
+        entityManager.clear();
+        statistics.clear();
+        OrderDto byId = orderService.getOrderById(byNumber.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(byId).isEqualTo(byNumber);
+    }
+
+    @Test
+    void polledOrderIsServedFromTheCache() {
+        OrderDto first = orderService.getOrderByOrderNumber("ORD-TEST-2-7");
+        statistics.clear();
+
+        OrderDto polled = orderService.getOrderByOrderNumber("ORD-TEST-2-7");
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(polled).isSameAs(first);
+    }
+
+    @Test
+    void quoteReadsTheProductsOnceAndWritesNothing() {
+        List<Long> productIds = productRepository.findAll().stream().map(ProductEntity::getId).toList();
+        statistics.clear();
+
+        PriceQuoteDto quote = orderService.quoteOrder(productIds.stream()
+                .map(productId -> new CheckoutOrderItemDto(productId, 2, null))
+                .toList());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount() + statistics.getEntityInsertCount()).isZero();
+        assertThat(quote.getLines()).hasSize(productIds.size());
+        // 2 x (2.5 + 3.5 + ... + 7.5)
+        assertThat(quote.getTotalAmount()).isEqualByComparingTo("60.00");
+    }
+
+    @Test
+    void analyticsReadOnlyTheRollups() {
+        // fixtures bypass the service, so seed the rollups the way a fresh deployment would
+        assertThat(revenueRollupService.rebuildRollups()).isPositive();
+        entityManager.flush();
+        statistics.clear();
+
+        Map<String, Object> analytics = orderService.getRevenueAnalytics();
+        List<Map<String, Object>> daily = orderService.getDailyRevenue(7);
+        List<Map<String, Object>> monthly = orderService.getMonthlyRevenue(12);
+        Map<String, Object> stats = orderService.getOrderStats();
+
+        // one small query against the rollups per call, independent of the number of orders
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+
+        double expectedRevenue = orderService.getOrdersByStatus("DELIVERED").stream()
+                .mapToDouble(OrderDto::getTotalAmount)
+                .sum();
+        assertThat((Double) analytics.get("totalRevenue")).isCloseTo(expectedRevenue, within(0.001));
+        assertThat(analytics.get("totalOrders")).isEqualTo((long) USERS * ORDERS_PER_USER);
+        assertThat(daily).hasSize(7);
+        assertThat(daily.stream().mapToDouble(day -> (Double) day.get("revenue")).sum())
+                .isCloseTo(expectedRevenue, within(0.001));
+        assertThat(monthly).hasSize(12);
+        assertThat(stats.get("totalOrders")).isEqualTo((long) USERS * ORDERS_PER_USER);
+    }
+
+    @Test
+    void rebuildCorrectsDriftedCellsInPlace() {
+        revenueRollupService.rebuildRollups();
+        entityManager.flush();
+        long cells = revenueRollupRepository.count();
+        jdbcTemplate.update("UPDATE revenue_rollups SET order_count = order_count + 5, revenue = revenue - 12.5 " +
+                "WHERE status = 'DELIVERED'");
+        int drifted = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM revenue_rollups WHERE status = 'DELIVERED'", Integer.class);
+
+        assertThat(revenueRollupService.rebuildRollups()).isEqualTo(drifted);
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(revenueRollupRepository.count()).isEqualTo(cells);
+        assertThat(revenueRollupService.rebuildRollups()).isZero();
+    }
+
+    @Test
+    void backfillRetotalsLegacyOrdersAndTheirRollups() {
+        revenueRollupService.rebuildRollups();
+        entityManager.flush();
+        Long legacyOrderId = jdbcTemplate.queryForObject(
+                "SELECT id FROM orders WHERE order_number = 'ORD-TEST-0-1'", Long.class);
+        double serverTotal = jdbcTemplate.queryForObject(
+                "SELECT total_amount FROM orders WHERE id = ?", Double.class, legacyOrderId);
+        // A legacy order: no line prices, and whatever total the client claimed
+        jdbcTemplate.update("UPDATE line_items SET unit_price = NULL WHERE order_id = ?", legacyOrderId);
+        jdbcTemplate.update("UPDATE orders SET total_amount = 0.01 WHERE id = ?", legacyOrderId);
+
+        orderService.backfillOrderPrices();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT total_amount FROM orders WHERE id = ?", Double.class,
+                legacyOrderId)).isCloseTo(serverTotal, within(0.001));
+        assertThat(revenueRollupService.rebuildRollups()).isZero();
+    }
+
+    @Test
+    void statusChangesMoveOrdersBetweenRollupCells() {
+        revenueRollupService.rebuildRollups();
+        entityManager.flush();
+        entityManager.clear();
+        OrderDto pending = orderService.getOrdersByStatus("PENDING").get(0);
+        double deliveredRevenue = (Double) orderService.getRevenueAnalytics().get("totalRevenue");
+
+        orderService.updateOrderStatus(pending.getId(), "DELIVERED");
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<String, Object> analytics = orderService.getRevenueAnalytics();
+        assertThat((Double) analytics.get("totalRevenue"))
+                .isCloseTo(deliveredRevenue + pending.getTotalAmount(), within(0.001));
+        assertThat(analytics.get("deliveredOrders")).isEqualTo((long) USERS * ORDERS_PER_USER / 2 + 1);
+        // incremental maintenance agrees with a full recomputation
+        assertThat(revenueRollupService.rebuildRollups()).isZero();
+    }
+
+    @Test
+    void bulkStatusChangesKeepRollupsConsistent() {
+        revenueRollupService.rebuildRollups();
+        entityManager.flush();
+        entityManager.clear();
+        List<Long> pendingIds = orderService.getOrdersByStatus("PENDING").stream().map(OrderDto::getId).toList();
+
+        BulkStatusUpdateResultDto result = orderService.bulkUpdateOrderStatus(pendingIds, "PENDING", "DELIVERED");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(result.getUpdated()).isEqualTo(pendingIds.size());
+        assertThat(orderService.getRevenueAnalytics().get("deliveredOrders")).isEqualTo((long) USERS * ORDERS_PER_USER);
+        // netted per-cell deltas agree with a full recomputation
+        assertThat(revenueRollupService.rebuildRollups()).isZero();
+    }
+
+    @Test
+    void checkoutStatementsDoNotGrowWithItemCount() {
+        List<Long> productIds = new ArrayList<>();
+        for (int p = 0; p < 50; p++) {
+            ProductEntity product = new ProductEntity();
+            product.setName("Checkout product " + p);
+            product.setPrice(1.0 + p);
+            product.setQuantity(10);
+            productIds.add(entityManager.persist(product).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> statementsPerCheckout = new ArrayList<>();
+        for (int itemCount : new int[] {1, 10, 50}) {
+            CheckoutRequestDto request = new CheckoutRequestDto();
+            request.setCustomerInfo(new ShippingInfoDto("User", "Zero", "555-0100", "1 Main St", "Springfield", "IL", "62701"));
+            request.setOrderItems(productIds.subList(0, itemCount).stream()
+                    .map(productId -> new CheckoutOrderItemDto(productId, 1, null))
+                    .toList());
+            request.setPaymentMethod("CASH");
+            request.setTotalAmount(IntStream.range(0, itemCount).mapToDouble(p -> 1.0 + p).sum());
+            request.setDirectPurchase(true);
+
+            statistics.clear();
+            OrderDto order = orderService.createOrderFromRequest("user0", request);
+            statementsPerCheckout.add(statistics.getPrepareStatementCount());
+
+            assertThat(order.getItems()).hasSize(itemCount);
+            assertThat(order.getItems()).allSatisfy(item -> assertThat(item.getId()).isNotNull());
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        // Line items and stock go out as JDBC batches, so nothing here scales with the item count
+        assertThat(statementsPerCheckout).containsOnly(statementsPerCheckout.get(0));
+        assertThat(lineItemRepository.findAll().stream().filter(item -> item.getUnitPrice() != null && item.getOrder() != null))
+                .hasSize(USERS * ORDERS_PER_USER * ITEMS_PER_ORDER + 1 + 10 + 50);
+    }
+}
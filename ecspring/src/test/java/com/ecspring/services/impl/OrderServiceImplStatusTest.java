@@ -0,0 +1,222 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.BulkStatusUpdateResultDto;
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.OrderDto;
+import com.ecspring.dto.OrderStatusDto;
+import com.ecspring.dto.OrderStatusResultDto;
+import com.ecspring.dto.ShippingInfoDto;
+import com.ecspring.entity.OrderStatus;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.events.OrderStatusChangedEvent;
+import com.ecspring.events.OrderStatusesChangedEvent;
+import com.ecspring.exception.OrderStatusConflictException;
+import com.ecspring.repositories.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderServiceFixture.class)
+class OrderServiceImplStatusTest {
+
+    @Autowired
+    private OrderServiceFixture fixture;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private OrderServiceImpl orderService;
+    private OrderDto order;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        orderService = fixture.orderService().eventPublisher(eventPublisher).build();
+        fixture.saveBuyer();
+
+        ProductEntity product = new ProductEntity();
+        product.setName("Pain au chocolat");
+        product.setPrice(2.5);
+        product.setQuantity(10);
+        productId = entityManager.persist(product).getId();
+        entityManager.flush();
+
+        order = placeOrder("buyer");
+    }
+
+    @Test
+    void transitionsFollowTheLifecycle() {
+        assertThat(OrderStatus.PENDING.canTransitionTo(OrderStatus.PROCESSING)).isTrue();
+        assertThat(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.CANCELLED)).isFalse();
+        assertThat(OrderStatus.DELIVERED.nextStatuses()).isEmpty();
+        assertThat(OrderStatus.parse(" shipped ")).isEqualTo(OrderStatus.SHIPPED);
+        assertThatThrownBy(() -> OrderStatus.parse("BAKED")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void statusChangeIsOneReadAndOneConditionalUpdate() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        OrderStatusDto updated = orderService.transitionOrderStatus(order.getId(), "PENDING", "PROCESSING");
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(updated.getStatus()).isEqualTo("PROCESSING");
+        // The login name the controller compares against, not the "Buyer" display name
+        assertThat(updated.getUsername()).isEqualTo("buyer");
+        assertThat(orderService.getOrderStatus(order.getId()).getStatus()).isEqualTo("PROCESSING");
+    }
+
+    @Test
+    void staleExpectedStatusIsRejected() {
+        orderService.updateOrderStatus(order.getId(), "SHIPPED");
+
+        // A second writer that still saw the order as PENDING must not overwrite SHIPPED
+        assertThatThrownBy(() -> orderService.transitionOrderStatus(order.getId(), "PENDING", "CANCELLED"))
+                .isInstanceOf(OrderStatusConflictException.class)
+                .hasMessageContaining("SHIPPED");
+        assertThat(orderService.getOrderStatus(order.getId()).getStatus()).isEqualTo("SHIPPED");
+    }
+
+    @Test
+    void disallowedTransitionsAreRejected() {
+        orderService.updateOrderStatus(order.getId(), "DELIVERED");
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(), "PENDING"))
+                .isInstanceOf(OrderStatusConflictException.class);
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(), "BAKED"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(orderService.getOrderStatus(order.getId()).getStatus()).isEqualTo("DELIVERED");
+    }
+
+    @Test
+    void bulkUpdateReportsEachOrderAndNotifiesEachUserOnce() {
+        UserEntity other = new UserEntity("regular", "regular@bakery.test", "Regular");
+        other.setPassword("secret");
+        entityManager.persist(other);
+        OrderDto second = placeOrder("buyer");
+        OrderDto third = placeOrder("buyer");
+        OrderDto othersOrder = placeOrder("regular");
+        orderService.updateOrderStatus(third.getId(), "DELIVERED");
+        reset(eventPublisher);
+
+        BulkStatusUpdateResultDto result = orderService.bulkUpdateOrderStatus(
+                List.of(order.getId(), second.getId(), third.getId(), othersOrder.getId(), -1L), null, "PROCESSING");
+
+        assertThat(result.getUpdated()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getResults()).extracting(OrderStatusResultDto::getOrderId)
+                .containsExactly(order.getId(), second.getId(), third.getId(), othersOrder.getId(), -1L);
+        assertThat(result.getResults()).extracting(OrderStatusResultDto::isSuccess)
+                .containsExactly(true, true, false, true, false);
+        assertThat(result.getResults().get(2).getError()).contains("DELIVERED");
+        assertThat(orderService.getOrderStatus(second.getId()).getStatus()).isEqualTo("PROCESSING");
+        assertThat(orderService.getOrderStatus(third.getId()).getStatus()).isEqualTo("DELIVERED");
+
+        // The buyer's two orders are coalesced, the other user's single order keeps the usual event
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).containsExactly(
+                new OrderStatusesChangedEvent(List.of(order.getOrderNumber(), second.getOrderNumber()),
+                        "PROCESSING", order.getUserId(), "buyer"),
+                new OrderStatusChangedEvent(othersOrder.getOrderNumber(), "PENDING", "PROCESSING",
+                        othersOrder.getUserId(), "regular"));
+    }
+
+    @Test
+    void bulkCancellationReturnsStockOfAllOrders() {
+        OrderDto second = placeOrder("buyer");
+        assertThat(stockLevel()).isEqualTo(10 - 4);
+
+        BulkStatusUpdateResultDto result = orderService.bulkUpdateOrderStatus(
+                List.of(order.getId(), second.getId()), "PENDING", "CANCELLED");
+
+        assertThat(result.getUpdated()).isEqualTo(2);
+        assertThat(stockLevel()).isEqualTo(10);
+    }
+
+    @Test
+    void bulkUpdateReportsLegacyStatusesPerOrder() {
+        OrderDto second = placeOrder("buyer");
+        jdbcTemplate.update("UPDATE orders SET status = 'COMPLETED' WHERE id = ?", second.getId());
+
+        BulkStatusUpdateResultDto result = orderService.bulkUpdateOrderStatus(
+                List.of(order.getId(), second.getId()), null, "PROCESSING");
+
+        assertThat(result.getResults()).extracting(OrderStatusResultDto::isSuccess).containsExactly(true, false);
+        assertThat(result.getResults().get(1).getError()).contains("COMPLETED");
+        assertThat(orderService.getOrderStatus(order.getId()).getStatus()).isEqualTo("PROCESSING");
+    }
+
+    @Test
+    void reinstatingWithoutStockIsAConflict() {
+        orderService.updateOrderStatus(order.getId(), "CANCELLED");
+        jdbcTemplate.update("UPDATE products SET quantity = 1 WHERE id = ?", productId);
+
+        assertThatThrownBy(() -> orderService.transitionOrderStatus(order.getId(), "CANCELLED", "PENDING"))
+                .isInstanceOf(OrderStatusConflictException.class)
+                .hasMessageContaining("Not enough stock");
+    }
+
+    @Test
+    void bulkReinstatingWithoutStockIsAConflict() {
+        orderService.updateOrderStatus(order.getId(), "CANCELLED");
+        jdbcTemplate.update("UPDATE products SET quantity = 1 WHERE id = ?", productId);
+
+        assertThatThrownBy(() -> orderService.bulkUpdateOrderStatus(List.of(order.getId()), "CANCELLED", "PENDING"))
+                .isInstanceOf(OrderStatusConflictException.class)
+                .hasMessageContaining("Not enough stock");
+    }
+
+    private OrderDto placeOrder(String username) {
+        CheckoutRequestDto request = new CheckoutRequestDto();
+        request.setCustomerInfo(new ShippingInfoDto("Buyer", "Test", "555-0100", "1 Main St", "Springfield", "IL", "62701"));
+        request.setOrderItems(List.of(new CheckoutOrderItemDto(productId, 2, 2.5)));
+        request.setPaymentMethod("CASH");
+        request.setTotalAmount(5.0);
+        request.setDirectPurchase(true);
+        OrderDto placed = orderService.createOrderFromRequest(username, request);
+        entityManager.flush();
+        entityManager.clear();
+        return placed;
+    }
+
+    private int stockLevel() {
+        entityManager.clear();
+        return productRepository.findById(productId).orElseThrow().getQuantity();
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.cache.ProductCatalogCache;
+import com.ecspring.dto.FeedbackRequestDto;
+import com.ecspring.entity.FeedbackEntity;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.repositories.FeedbackRepository;
+import com.ecspring.repositories.ProductRepository;
+import com.ecspring.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ProductRatingServiceImplTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private ProductRatingServiceImpl productRatingService;
+    private FeedbackServiceImpl feedbackService;
+    private UserEntity user;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productRatingService = new ProductRatingServiceImpl(productRepository, feedbackRepository,
+                new ProductCatalogCache(productRepository, new SimpleMeterRegistry()));
+        feedbackService = new FeedbackServiceImpl(feedbackRepository, productRepository, userRepository,
+                productRatingService);
+
+        user = new UserEntity("reviewer", "reviewer@bakery.test", "Reviewer");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        ProductEntity product = new ProductEntity();
+        product.setName("Brioche");
+        product.setPrice(4.0);
+        product.setQuantity(10);
+        productId = entityManager.persist(product).getId();
+        entityManager.flush();
+    }
+
+    @Test
+    void feedbackUpdatesTheRatingTotals() {
+        feedbackService.addFeedback("reviewer", productId, new FeedbackRequestDto(5, "Perfect"));
+        feedbackService.addFeedback("reviewer", productId, new FeedbackRequestDto(2, "Too sweet"));
+
+        ProductEntity product = reload();
+        assertThat(product.getRatingCount()).isEqualTo(2);
+        assertThat(product.getRatingSum()).isEqualTo(7L);
+        assertThat(productRatingService.rebuildRatings()).isZero();
+    }
+
+    @Test
+    void rebuildCorrectsTotalsThatDrifted() {
+        // Written behind the service's back, as older data would have been
+        for (int star = 1; star <= 4; star++) {
+            FeedbackEntity feedback = new FeedbackEntity();
+            feedback.setContent("Imported");
+            feedback.setStar(star);
+            feedback.setUser(user);
+            feedback.setProduct(entityManager.find(ProductEntity.class, productId));
+            entityManager.persist(feedback);
+        }
+        entityManager.flush();
+
+        assertThat(productRatingService.rebuildRatings()).isEqualTo(1);
+
+        ProductEntity product = reload();
+        assertThat(product.getRatingCount()).isEqualTo(4);
+        assertThat(product.getRatingSum()).isEqualTo(10L);
+    }
+
+    private ProductEntity reload() {
+        entityManager.flush();
+        entityManager.clear();
+        return productRepository.findById(productId).orElseThrow();
+    }
+}
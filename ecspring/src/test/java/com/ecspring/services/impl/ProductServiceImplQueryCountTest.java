@@ -0,0 +1,162 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.cache.ProductCatalogCache;
+import com.ecspring.dto.ProductDto;
+import com.ecspring.dto.ProductFilterDto;
+import com.ecspring.entity.FeedbackEntity;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.entity.UserEntity;
+import com.ecspring.repositories.ProductRepository;
+import com.ecspring.search.LuceneProductSearchIndex;
+import com.ecspring.search.ProductSuggester;
+import com.ecspring.services.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Pins the statements issued by the catalog read endpoints. None of them may
+ * load a product entity or its feedbacks; the cached ones hit the database
+ * only for the first read.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class ProductServiceImplQueryCountTest {
+
+    private static final int PRODUCTS = 20;
+    private static final int FEEDBACKS_PER_PRODUCT = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private LuceneProductSearchIndex productSearchIndex;
+    private ProductSuggester productSuggester;
+    private ProductServiceImpl productService;
+    private Statistics statistics;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productSearchIndex = new LuceneProductSearchIndex(productRepository);
+        productSuggester = new ProductSuggester(productRepository);
+        productService = new ProductServiceImpl(productRepository, mock(StorageService.class),
+                new ProductCatalogCache(productRepository, new SimpleMeterRegistry()), productSearchIndex,
+                productSuggester);
+
+        UserEntity user = new UserEntity("reviewer", "reviewer@bakery.test", "Reviewer");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        for (int p = 0; p < PRODUCTS; p++) {
+            ProductEntity product = new ProductEntity();
+            product.setName(p % 2 == 0 ? "Rye loaf " + p : "Croissant " + p);
+            product.setPrice(1.0 + p);
+            product.setQuantity(p % 4 == 0 ? 0 : 10);
+            // Stars 1..5 per product, as ProductRatingService would have recorded them
+            product.setRatingCount(FEEDBACKS_PER_PRODUCT);
+            product.setRatingSum(15L);
+            productId = entityManager.persist(product).getId();
+
+            for (int f = 0; f < FEEDBACKS_PER_PRODUCT; f++) {
+                FeedbackEntity feedback = new FeedbackEntity();
+                feedback.setContent("Lovely");
+                feedback.setStar(1 + f);
+                feedback.setUser(user);
+                feedback.setProduct(product);
+                entityManager.persist(feedback);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        productSearchIndex.rebuild();
+        productSuggester.rebuild();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void getAllProductsLoadsTheCatalogOnce() {
+        assertCached(() -> productService.getAllProducts(), PRODUCTS);
+    }
+
+    @Test
+    void getProductsInStockLoadsTheCatalogOnce() {
+        assertCached(() -> productService.getProductsInStock(), PRODUCTS - PRODUCTS / 4);
+    }
+
+    @Test
+    void getProductsByPriceRangeLoadsTheCatalogOnce() {
+        assertCached(() -> productService.getProductsByPriceRange(3.0, 7.0), 5);
+    }
+
+    @Test
+    void getProductByIdLoadsTheCatalogOnce() {
+        assertCached(() -> productService.getProductById(productId).stream().toList(), 1);
+    }
+
+    @Test
+    void searchProductsByNameLoadsTheCatalogOnce() {
+        assertCached(() -> productService.searchProductsByName("RYE"), PRODUCTS / 2);
+    }
+
+    @Test
+    void suggestProductsIssuesNoStatements() {
+        assertThat(productService.suggestProducts("cro", 5)).hasSize(5);
+        assertThat(productService.suggestProducts("rye loaf 1", 50)).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void filterProductsReadsNoFeedbacks() {
+        ProductFilterDto filter = new ProductFilterDto();
+        filter.setName("croissant");
+        Page<ProductDto> page = productService.filterProducts(filter, PageRequest.of(0, 5));
+
+        assertThat(page.getContent()).hasSize(5).allSatisfy(product -> {
+            assertThat(product.getAvgRating()).isEqualTo(3.0);
+            assertThat(product.getRatingCount()).isEqualTo(FEEDBACKS_PER_PRODUCT);
+        });
+        // The page and its count
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    private void assertCached(Supplier<List<ProductDto>> read, int expectedSize) {
+        List<ProductDto> cold = read.get();
+        assertThat(cold).hasSize(expectedSize);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertNothingLoaded();
+
+        statistics.clear();
+        assertThat(read.get()).isEqualTo(cold);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    private void assertNothingLoaded() {
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+}
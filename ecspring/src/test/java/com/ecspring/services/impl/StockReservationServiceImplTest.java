@@ -0,0 +1,132 @@
+package com.ecspring.services.impl;
+
+import com.ecspring.dto.CheckoutOrderItemDto;
+import com.ecspring.dto.CheckoutRequestDto;
+import com.ecspring.dto.OrderDto;
+import com.ecspring.dto.ShippingInfoDto;
+import com.ecspring.dto.StockHoldDto;
+import com.ecspring.entity.ProductEntity;
+import com.ecspring.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderServiceFixture.class)
+class StockReservationServiceImplTest {
+
+    private static final int STOCK = 10;
+
+    @Autowired
+    private OrderServiceFixture fixture;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    private OrderServiceImpl orderService;
+    private StockReservationServiceImpl stockReservationService;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        stockReservationService = fixture.stockReservationService();
+        orderService = fixture.orderService().stockReservationService(stockReservationService).build();
+        fixture.saveBuyer();
+
+        ProductEntity product = new ProductEntity();
+        product.setName("Croissant");
+        product.setPrice(2.0);
+        product.setQuantity(STOCK);
+        productId = entityManager.persist(product).getId();
+        entityManager.flush();
+    }
+
+    @Test
+    void checkoutAgainstHoldTakesStockOnce() {
+        StockHoldDto hold = orderService.holdStock("buyer", List.of(item(3)));
+        assertThat(stockLevel()).isEqualTo(STOCK - 3);
+
+        CheckoutRequestDto request = checkoutRequest(item(3));
+        request.setHoldId(hold.getHoldId());
+        orderService.createOrderFromRequest("buyer", request);
+
+        assertThat(stockLevel()).isEqualTo(STOCK - 3);
+        assertThat(stockHoldRepository.findByHoldId(hold.getHoldId())).isEmpty();
+    }
+
+    @Test
+    void checkoutMustMatchTheHold() {
+        StockHoldDto hold = orderService.holdStock("buyer", List.of(item(3)));
+
+        CheckoutRequestDto request = checkoutRequest(item(4));
+        request.setHoldId(hold.getHoldId());
+
+        assertThatThrownBy(() -> orderService.createOrderFromRequest("buyer", request))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void expiredHoldsReturnTheirStock() {
+        StockHoldDto hold = orderService.holdStock("buyer", List.of(item(4)));
+        jdbcTemplate.update("UPDATE stock_holds SET expires_at = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP)");
+
+        assertThat(stockReservationService.releaseExpiredHolds()).isEqualTo(1);
+        assertThat(stockLevel()).isEqualTo(STOCK);
+
+        CheckoutRequestDto request = checkoutRequest(item(4));
+        request.setHoldId(hold.getHoldId());
+        assertThatThrownBy(() -> orderService.createOrderFromRequest("buyer", request))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("expired");
+    }
+
+    @Test
+    void cancellingAnOrderReturnsItsStock() {
+        OrderDto order = orderService.createOrderFromRequest("buyer", checkoutRequest(item(2)));
+        assertThat(stockLevel()).isEqualTo(STOCK - 2);
+
+        orderService.updateOrderStatus(order.getId(), "CANCELLED");
+        assertThat(stockLevel()).isEqualTo(STOCK);
+    }
+
+    private int stockLevel() {
+        entityManager.flush();
+        entityManager.clear();
+        return productRepository.findById(productId).orElseThrow().getQuantity();
+    }
+
+    private CheckoutOrderItemDto item(int quantity) {
+        return new CheckoutOrderItemDto(productId, quantity, 2.0);
+    }
+
+    private CheckoutRequestDto checkoutRequest(CheckoutOrderItemDto... items) {
+        CheckoutRequestDto request = new CheckoutRequestDto();
+        request.setCustomerInfo(new ShippingInfoDto("Buyer", "Test", "555-0100", "1 Main St", "Springfield", "IL", "62701"));
+        request.setOrderItems(List.of(items));
+        request.setPaymentMethod("CASH");
+        request.setTotalAmount(Arrays.stream(items).mapToDouble(item -> item.getPrice() * item.getQuantity()).sum());
+        request.setDirectPurchase(true);
+        return request;
+    }
+}